@@ -0,0 +1,40 @@
+package com.shyam.shop;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// Entry point of target/benchmarks.jar: JMH arguments, results to jmh-results/<timestamp>.json unless -rf/-rff is given.
+// Build and run from Sweet_Backend:
+//   mvn -pl sweet-benchmarks -am package -DskipTests
+//   java -jar sweet-benchmarks/target/benchmarks.jar [regexp] [-p cost=10,12] [-f 1 -wi 3 -i 5]
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp()) {
+            commandLine.showHelp();
+            return;
+        }
+        if (commandLine.shouldList()) {
+            new Runner(commandLine).list();
+            return;
+        }
+
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(commandLine);
+        if (!commandLine.getResultFormat().hasValue() && !commandLine.getResult().hasValue()) {
+            File dir = new File("jmh-results");
+            dir.mkdirs();
+            String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            options.resultFormat(ResultFormatType.JSON)
+                    .result(new File(dir, stamp + ".json").getPath());
+        }
+        new Runner(options.build()).run();
+    }
+}
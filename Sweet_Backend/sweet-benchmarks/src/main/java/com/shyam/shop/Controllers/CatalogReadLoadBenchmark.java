@@ -0,0 +1,158 @@
+package com.shyam.shop.Controllers;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.shyam.shop.Models.Sweet;
+import com.shyam.shop.Security.JwtUtil;
+import com.shyam.shop.SweetShopApplication;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Catalog read throughput and tail latency, blocking vs shop.catalog.reactive=true. Use a real mongod for real numbers:
+//   java [-Dbench.mongo.uri=mongodb://localhost:27017] [-Dbench.clients=1000] [-Dbench.seconds=20] [-Dbench.sweets=2000] \
+//        -cp sweet-benchmarks/target/benchmarks.jar com.shyam.shop.Controllers.CatalogReadLoadBenchmark
+public class CatalogReadLoadBenchmark {
+
+    private static final String[] CATEGORIES = {"Chocolate", "Barfi", "Ladoo", "Halwa", "Candy", "Pastry", "Jalebi", "Peda"};
+
+    public static void main(String[] args) throws Exception {
+        int clients = Integer.getInteger("bench.clients", 1_000);
+        int seconds = Integer.getInteger("bench.seconds", 20);
+        int sweets = Integer.getInteger("bench.sweets", 2_000);
+        String externalUri = System.getProperty("bench.mongo.uri");
+
+        System.out.printf("%-9s %8s %10s %10s %9s %9s %9s %7s%n",
+                "mode", "clients", "requests", "req/s", "p50(ms)", "p99(ms)", "max(ms)", "errors");
+        for (boolean reactive : new boolean[]{false, true}) {
+            MongoServer mongo = externalUri == null ? new MongoServer(new MemoryBackend()) : null;
+            String uri = (mongo == null ? externalUri : mongo.bindAndGetConnectionString()) + "/load-bench";
+            List<String> ids = seed(uri, sweets);
+            try (ConfigurableApplicationContext app = new SpringApplicationBuilder(SweetShopApplication.class)
+                    .properties("server.port=0",
+                            "spring.data.mongodb.uri=" + uri,
+                            "shop.catalog.reactive=" + reactive,
+                            "logging.level.com.shyam.shop=WARN")
+                    .run()) {
+                String token = app.getBean(JwtUtil.class).generateToken("bench@example.com", "USER");
+                String base = "http://localhost:" + app.getEnvironment().getProperty("local.server.port") + "/api/sweets";
+
+                drive(base, token, ids, clients, Math.max(2, seconds / 4), null);
+                Result result = new Result();
+                drive(base, token, ids, clients, seconds, result);
+                result.print(reactive ? "reactive" : "blocking", clients, seconds);
+                if (result.errors.get() > 0) {
+                    throw new IllegalStateException(result.errors.get() + " requests failed under load");
+                }
+            } finally {
+                if (mongo != null) {
+                    mongo.shutdown();
+                }
+            }
+        }
+    }
+
+    // Written before the app starts so the load never races the startup index build
+    private static List<String> seed(String uri, int count) {
+        try (MongoClient client = MongoClients.create(uri)) {
+            MongoTemplate template = new MongoTemplate(client, "load-bench");
+            template.dropCollection(Sweet.class);
+            Random random = new Random(42);
+            List<Sweet> sweets = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+                Sweet sweet = new Sweet();
+                sweet.setName(category + " " + i);
+                sweet.setCategory(category);
+                sweet.setPrice(random.nextInt(50_000) / 100.0);
+                sweet.setQuantity(random.nextInt(500));
+                sweet.setActive(true);
+                sweet.setCreatedAt(LocalDateTime.now());
+                sweet.setUpdatedAt(LocalDateTime.now());
+                sweets.add(sweet);
+            }
+            return template.insert(sweets, Sweet.class).stream().map(Sweet::getId).toList();
+        }
+    }
+
+    // 70% search pages, 20% single items, 10% full list; at most `clients` requests in flight at any time
+    private static void drive(String base, String token, List<String> ids, int clients, int seconds, Result result)
+            throws InterruptedException {
+        HttpClient http = HttpClient.newBuilder()
+                .executor(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2))
+                .build();
+        Semaphore inFlight = new Semaphore(clients);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+
+        while (System.nanoTime() < deadline) {
+            inFlight.acquire();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int pick = random.nextInt(10);
+            String path = pick < 7
+                    ? "/search?category=" + CATEGORIES[random.nextInt(CATEGORIES.length)] + "&sort=price&limit=20"
+                    : pick < 9 ? "/" + ids.get(random.nextInt(ids.size())) : "";
+            HttpRequest request = HttpRequest.newBuilder(URI.create(base + path))
+                    .header("Authorization", "Bearer " + token)
+                    .build();
+            long start = System.nanoTime();
+            http.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                inFlight.release();
+                if (result != null) {
+                    result.record(System.nanoTime() - start, error == null && response.statusCode() == 200);
+                }
+            });
+        }
+        inFlight.acquire(clients);
+    }
+
+    private static class Result {
+
+        private final long[] samples = new long[5_000_000];
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicLong errors = new AtomicLong();
+
+        void record(long nanos, boolean ok) {
+            int index = count.getAndIncrement();
+            if (index < samples.length) {
+                samples[index] = nanos;
+            }
+            if (!ok) {
+                errors.incrementAndGet();
+            }
+        }
+
+        void print(String mode, int clients, int seconds) {
+            int n = Math.min(count.get(), samples.length);
+            long[] sorted = Arrays.copyOf(samples, n);
+            Arrays.sort(sorted);
+            System.out.printf("%-9s %8d %10d %10.0f %9.2f %9.2f %9.2f %7d%n",
+                    mode, clients, count.get(), count.get() / (double) seconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 1.0), errors.get());
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.shyam.shop.Load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency histogram and status counts for one endpoint within one scenario
+class EndpointStats {
+
+    private static final long MAX_TRACKED_MICROS = 120_000_000L;
+
+    private final Histogram latencyMicros = new ConcurrentHistogram(MAX_TRACKED_MICROS, 3);
+    private final Map<Integer, LongAdder> statuses = new ConcurrentSkipListMap<>();
+    private final LongAdder ioErrors = new LongAdder();
+
+    void record(long nanos, int status) {
+        latencyMicros.recordValue(Math.min(MAX_TRACKED_MICROS, Math.max(1, nanos / 1_000)));
+        statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    void recordIoError(long nanos) {
+        latencyMicros.recordValue(Math.min(MAX_TRACKED_MICROS, Math.max(1, nanos / 1_000)));
+        ioErrors.increment();
+    }
+
+    long count() {
+        return latencyMicros.getTotalCount();
+    }
+
+    long successes() {
+        return statuses.entrySet().stream()
+                .filter(entry -> entry.getKey() >= 200 && entry.getKey() < 300)
+                .mapToLong(entry -> entry.getValue().sum())
+                .sum();
+    }
+
+    Map<String, Object> summary(double seconds) {
+        long count = count();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", count);
+        summary.put("throughput", round(count / seconds));
+        summary.put("p50Ms", millis(latencyMicros.getValueAtPercentile(50)));
+        summary.put("p95Ms", millis(latencyMicros.getValueAtPercentile(95)));
+        summary.put("p99Ms", millis(latencyMicros.getValueAtPercentile(99)));
+        summary.put("p999Ms", millis(latencyMicros.getValueAtPercentile(99.9)));
+        summary.put("maxMs", millis(latencyMicros.getMaxValue()));
+        summary.put("errorRate", count == 0 ? 0.0 : round((count - successes()) * 100.0 / count) / 100.0);
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        statuses.forEach((status, adder) -> byStatus.put(String.valueOf(status), adder.sum()));
+        if (ioErrors.sum() > 0) {
+            byStatus.put("io", ioErrors.sum());
+        }
+        summary.put("statuses", byStatus);
+        return summary;
+    }
+
+    private static double millis(long micros) {
+        return round(micros / 1_000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
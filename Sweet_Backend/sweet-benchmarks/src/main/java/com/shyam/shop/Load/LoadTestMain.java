@@ -0,0 +1,198 @@
+package com.shyam.shop.Load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.shyam.shop.Repository.SweetRepository;
+import com.shyam.shop.Security.JwtUtil;
+import com.shyam.shop.SweetShopApplication;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Boots the app against an embedded Mongo (or --mongo-uri) and reports per-endpoint throughput, latency
+// percentiles and errors for each scenario, also to load-results/<timestamp>.json. Rate limiting is off by default.
+//   java -cp sweet-benchmarks/target/benchmarks.jar com.shyam.shop.Load.LoadTestMain \
+//        [--scenarios=browse,search,login,purchase] [--clients=200] [--duration=30] [--warmup=5] \
+//        [--users=500] [--sweets=2000] [--hot-stock=20000] [--mongo-uri=mongodb://localhost:27017] [--rate-limit=false]
+public class LoadTestMain {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        List<Scenario> scenarios = new ArrayList<>();
+        for (String name : options.getOrDefault("scenarios", "browse,search,login,purchase").split(",")) {
+            scenarios.add(Scenario.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+        }
+        int clients = Integer.parseInt(options.getOrDefault("clients", "200"));
+        int duration = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        int users = Integer.parseInt(options.getOrDefault("users", "500"));
+        int sweets = Integer.parseInt(options.getOrDefault("sweets", "2000"));
+        int hotStock = Integer.parseInt(options.getOrDefault("hot-stock", "20000"));
+        int bcryptStrength = Integer.parseInt(options.getOrDefault("bcrypt-strength", "10"));
+        boolean rateLimit = Boolean.parseBoolean(options.getOrDefault("rate-limit", "false"));
+
+        MongoServer embedded = options.containsKey("mongo-uri") ? null : new MongoServer(new MemoryBackend());
+        String mongoUri = (embedded == null ? options.get("mongo-uri") : embedded.bindAndGetConnectionString())
+                + "/" + ShopFixture.DATABASE;
+
+        System.out.printf("Seeding %d users and %d sweets into %s%n", users, sweets, mongoUri);
+        ShopFixture seeded = ShopFixture.seed(mongoUri, users, sweets, hotStock, bcryptStrength);
+
+        try (ConfigurableApplicationContext app = new SpringApplicationBuilder(SweetShopApplication.class)
+                .properties("server.port=0",
+                        "spring.data.mongodb.uri=" + mongoUri,
+                        "shop.security.bcrypt.strength=" + bcryptStrength,
+                        "shop.ratelimit.enabled=" + rateLimit,
+                        // Orders from a throwaway database are not worth replaying into the next run
+                        "shop.orders.journal-dir=" + Files.createTempDirectory("load-orders"),
+                        "logging.level.root=WARN",
+                        // Rejected purchases surface as servlet exceptions; the report already counts them
+                        "logging.level.org.apache.catalina.core=OFF",
+                        "logging.level.com.shyam.shop=WARN")
+                .run()) {
+            URI base = URI.create("http://localhost:" + app.getEnvironment().getProperty("local.server.port"));
+            ShopFixture shop = seeded.connect(base, app.getBean(JwtUtil.class));
+            HttpClient http = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("clients", clients);
+            report.put("durationSeconds", duration);
+            report.put("mongo", embedded == null ? "external" : "embedded");
+            report.put("rateLimit", rateLimit);
+            for (Scenario scenario : scenarios) {
+                run(http, shop, scenario, clients, warmup, null);
+                int stockBefore = hotStock(app, shop);
+                Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+                double seconds = run(http, shop, scenario, clients, duration, stats);
+                Map<String, Object> section = print(scenario, stats, seconds);
+                if (scenario == Scenario.PURCHASE) {
+                    section.put("stockCheck", checkStock(stockBefore, hotStock(app, shop), stats));
+                }
+                report.put(scenario.name().toLowerCase(Locale.ROOT), section);
+            }
+            write(report);
+        } finally {
+            if (embedded != null) {
+                embedded.shutdown();
+            }
+        }
+        // Mongo driver event loops are non-daemon and can outlive the context
+        System.exit(0);
+    }
+
+    // Closed loop: each client thread sends its next request as soon as the previous one completes
+    private static double run(HttpClient http, ShopFixture shop, Scenario scenario, int clients, int seconds,
+                              Map<String, EndpointStats> stats) throws InterruptedException {
+        long started = System.nanoTime();
+        long deadline = started + seconds * 1_000_000_000L;
+        CountDownLatch done = new CountDownLatch(clients);
+        for (int i = 0; i < clients; i++) {
+            Thread client = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    while (System.nanoTime() < deadline) {
+                        Scenario.Call call = scenario.next(shop, random);
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<String> response = http.send(call.request(), HttpResponse.BodyHandlers.ofString());
+                            if (stats != null) {
+                                stats.computeIfAbsent(call.endpoint(), e -> new EndpointStats())
+                                        .record(System.nanoTime() - start, response.statusCode());
+                            }
+                            scenario.afterResponse(shop, response);
+                        } catch (IOException e) {
+                            if (stats != null) {
+                                stats.computeIfAbsent(call.endpoint(), k -> new EndpointStats())
+                                        .recordIoError(System.nanoTime() - start);
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "load-client-" + i);
+            client.setDaemon(true);
+            client.start();
+        }
+        done.await();
+        return (System.nanoTime() - started) / 1e9;
+    }
+
+    private static Map<String, Object> print(Scenario scenario, Map<String, EndpointStats> stats, double seconds) {
+        System.out.printf("%n== %s (%.1fs)%n", scenario, seconds);
+        System.out.printf("%-36s %9s %9s %9s %9s %9s %9s %9s %7s  %s%n",
+                "endpoint", "requests", "req/s", "p50 ms", "p95 ms", "p99 ms", "p99.9 ms", "max ms", "err %", "statuses");
+        Map<String, Object> section = new LinkedHashMap<>();
+        stats.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry -> {
+            Map<String, Object> summary = entry.getValue().summary(seconds);
+            System.out.printf("%-36s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %7.2f  %s%n", entry.getKey(),
+                    summary.get("requests"), summary.get("throughput"), summary.get("p50Ms"), summary.get("p95Ms"),
+                    summary.get("p99Ms"), summary.get("p999Ms"), summary.get("maxMs"),
+                    (double) summary.get("errorRate") * 100, summary.get("statuses"));
+            section.put(entry.getKey(), summary);
+        });
+        return section;
+    }
+
+    private static int hotStock(ConfigurableApplicationContext app, ShopFixture shop) {
+        return app.getBean(SweetRepository.class).findById(shop.hotSweetId()).orElseThrow().getQuantity();
+    }
+
+    // Sold units (2xx responses) must equal the stock that left the hot sweet during the measured run
+    private static Map<String, Object> checkStock(int before, int remaining, Map<String, EndpointStats> stats) {
+        long sold = stats.values().stream().mapToLong(EndpointStats::successes).sum();
+        boolean consistent = before - remaining == sold;
+        System.out.printf("hot sweet: stock %d -> %d, sold %d, %s%n", before, remaining, sold,
+                consistent ? "consistent" : "MISMATCH");
+        Map<String, Object> check = new LinkedHashMap<>();
+        check.put("stockBefore", before);
+        check.put("remaining", remaining);
+        check.put("sold", sold);
+        check.put("consistent", consistent);
+        return check;
+    }
+
+    private static void write(Map<String, Object> report) throws IOException {
+        File dir = new File("load-results");
+        dir.mkdirs();
+        File file = new File(dir, LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+        System.out.printf("%nReport saved to %s%n", file.getPath());
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,84 @@
+package com.shyam.shop.Load;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+
+// One traffic mix. Each call picks the next request for a client; afterResponse lets a scenario
+// feed what it saw (e.g. a search cursor) into later requests.
+enum Scenario {
+
+    // Shoppers paging through the storefront: mostly the full list and single items
+    BROWSE {
+        @Override
+        Call next(ShopFixture shop, ThreadLocalRandom random) {
+            int pick = random.nextInt(10);
+            if (pick < 5) {
+                return shop.get("GET /api/sweets", "/api/sweets", random);
+            }
+            if (pick < 9) {
+                return shop.get("GET /api/sweets/{id}", "/api/sweets/" + shop.randomSweetId(random), random);
+            }
+            return shop.get("GET /api/sweets/search", "/api/sweets/search?category=" + shop.randomCategory(random), random);
+        }
+    },
+
+    // Filter and sort combinations plus follow-up pages through the returned cursors
+    SEARCH {
+        @Override
+        Call next(ShopFixture shop, ThreadLocalRandom random) {
+            String cursor = random.nextInt(4) == 0 ? shop.takeCursor() : null;
+            if (cursor != null) {
+                return shop.get("GET /api/sweets/search (next page)", "/api/sweets/search?limit=20&cursor=" + cursor, random);
+            }
+            String sort = SORTS[random.nextInt(SORTS.length)];
+            String direction = random.nextBoolean() ? "asc" : "desc";
+            String filter = switch (random.nextInt(3)) {
+                case 0 -> "category=" + shop.randomCategory(random);
+                case 1 -> "name=" + shop.randomCategory(random).toLowerCase() + "%20" + random.nextInt(10);
+                default -> "minPrice=" + random.nextInt(200) + "&maxPrice=" + (200 + random.nextInt(300));
+            };
+            return shop.get("GET /api/sweets/search", "/api/sweets/search?limit=20&sort=" + sort
+                    + "&direction=" + direction + "&" + filter, random);
+        }
+
+        @Override
+        void afterResponse(ShopFixture shop, HttpResponse<String> response) {
+            if (response.statusCode() == 200) {
+                shop.offerCursor(response.body());
+            }
+        }
+    },
+
+    // Everyone logging in at once; BCrypt and the hashing pool's admission limit dominate
+    LOGIN {
+        @Override
+        Call next(ShopFixture shop, ThreadLocalRandom random) {
+            return shop.login(random);
+        }
+    },
+
+    // Every client buying one unit of the same sweet; the report checks nothing was oversold
+    PURCHASE {
+        @Override
+        Call next(ShopFixture shop, ThreadLocalRandom random) {
+            return shop.post("POST /api/sweets/{id}/purchase",
+                    "/api/sweets/" + shop.hotSweetId() + "/purchase?quantity=1", random);
+        }
+    };
+
+    private static final String[] SORTS = {"name", "price", "created"};
+
+    abstract Call next(ShopFixture shop, ThreadLocalRandom random);
+
+    void afterResponse(ShopFixture shop, HttpResponse<String> response) {
+    }
+
+    record Call(String endpoint, HttpRequest request) {
+
+        static HttpRequest.Builder to(URI base, String path) {
+            return HttpRequest.newBuilder(base.resolve(path));
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.shyam.shop.Load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.shyam.shop.Models.Role;
+import com.shyam.shop.Models.Sweet;
+import com.shyam.shop.Models.User;
+import com.shyam.shop.Security.JwtUtil;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Seeded shop data and the request builders the scenarios share
+class ShopFixture {
+
+    static final String DATABASE = "load-test";
+    static final String PASSWORD = "sweet-load-test";
+
+    private static final String[] CATEGORIES = {"Chocolate", "Barfi", "Ladoo", "Halwa", "Candy", "Pastry", "Jalebi", "Peda"};
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+    private static final int MAX_CURSORS = 10_000;
+
+    private final URI base;
+    private final List<String> emails;
+    private final List<String> tokens = new ArrayList<>();
+    private final List<String> sweetIds;
+    private final String hotSweetId;
+    private final Queue<String> cursors = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger cursorCount = new AtomicInteger();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ShopFixture(URI base, List<String> emails, List<String> sweetIds, String hotSweetId) {
+        this.base = base;
+        this.emails = emails;
+        this.sweetIds = sweetIds;
+        this.hotSweetId = hotSweetId;
+    }
+
+    // Written straight to Mongo before the app starts, so seeding never races the startup index build
+    static ShopFixture seed(String mongoUri, int users, int sweets, int hotStock, int bcryptStrength) {
+        try (MongoClient client = MongoClients.create(mongoUri)) {
+            MongoTemplate template = new MongoTemplate(client, DATABASE);
+            template.dropCollection(User.class);
+            template.dropCollection(Sweet.class);
+
+            LocalDateTime now = LocalDateTime.now();
+            String hash = new BCryptPasswordEncoder(bcryptStrength).encode(PASSWORD);
+            List<User> userRows = new ArrayList<>(users);
+            for (int i = 0; i < users; i++) {
+                User user = new User();
+                user.setUsername("shopper" + i);
+                user.setEmail("shopper" + i + "@load.test");
+                user.setPassword(hash);
+                user.setRole(Role.USER);
+                user.setCreatedAt(now);
+                user.setUpdatedAt(now);
+                userRows.add(user);
+            }
+            List<String> emails = template.insert(userRows, User.class).stream().map(User::getEmail).toList();
+
+            Random random = new Random(42);
+            List<Sweet> sweetRows = new ArrayList<>(sweets + 1);
+            for (int i = 0; i < sweets; i++) {
+                String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+                sweetRows.add(sweet(category + " " + i, category, random.nextInt(50_000) / 100.0, random.nextInt(500), now));
+            }
+            sweetRows.add(sweet("Kaju Katli Festival Box", "Barfi", 499.0, hotStock, now));
+            List<String> sweetIds = template.insert(sweetRows, Sweet.class).stream().map(Sweet::getId).toList();
+            return new ShopFixture(null, emails, sweetIds, sweetIds.get(sweetIds.size() - 1));
+        }
+    }
+
+    private static Sweet sweet(String name, String category, double price, int quantity, LocalDateTime now) {
+        Sweet sweet = new Sweet();
+        sweet.setName(name);
+        sweet.setCategory(category);
+        sweet.setPrice(price);
+        sweet.setQuantity(quantity);
+        sweet.setDescription("Load test sweet");
+        sweet.setActive(true);
+        sweet.setRevision(1L);
+        sweet.setCreatedAt(now);
+        sweet.setUpdatedAt(now);
+        return sweet;
+    }
+
+    // Binds the seeded data to the running app and signs one token per seeded user
+    ShopFixture connect(URI base, JwtUtil jwtUtil) {
+        ShopFixture connected = new ShopFixture(base, emails, sweetIds, hotSweetId);
+        emails.forEach(email -> connected.tokens.add(jwtUtil.generateToken(email, Role.USER.name())));
+        return connected;
+    }
+
+    String hotSweetId() {
+        return hotSweetId;
+    }
+
+    String randomSweetId(ThreadLocalRandom random) {
+        return sweetIds.get(random.nextInt(sweetIds.size()));
+    }
+
+    String randomCategory(ThreadLocalRandom random) {
+        return CATEGORIES[random.nextInt(CATEGORIES.length)];
+    }
+
+    Scenario.Call get(String endpoint, String path, ThreadLocalRandom random) {
+        return new Scenario.Call(endpoint, authorized(path, random).GET().build());
+    }
+
+    Scenario.Call post(String endpoint, String path, ThreadLocalRandom random) {
+        return new Scenario.Call(endpoint, authorized(path, random).POST(HttpRequest.BodyPublishers.noBody()).build());
+    }
+
+    Scenario.Call login(ThreadLocalRandom random) {
+        String body = "{\"email\":\"" + emails.get(random.nextInt(emails.size())) + "\",\"password\":\"" + PASSWORD + "\"}";
+        return new Scenario.Call("POST /api/auth/login", Scenario.Call.to(base, "/api/auth/login")
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build());
+    }
+
+    void offerCursor(String body) {
+        try {
+            JsonNode next = objectMapper.readTree(body).get("nextCursor");
+            if (next != null && !next.isNull() && cursorCount.incrementAndGet() <= MAX_CURSORS) {
+                cursors.add(URLEncoder.encode(next.asText(), StandardCharsets.UTF_8));
+            } else if (next != null && !next.isNull()) {
+                cursorCount.decrementAndGet();
+            }
+        } catch (Exception ignored) {
+            // A malformed body already counts against the endpoint through its status
+        }
+    }
+
+    String takeCursor() {
+        String cursor = cursors.poll();
+        if (cursor != null) {
+            cursorCount.decrementAndGet();
+        }
+        return cursor;
+    }
+
+    private HttpRequest.Builder authorized(String path, ThreadLocalRandom random) {
+        return Scenario.Call.to(base, path)
+                .timeout(TIMEOUT)
+                .header("Authorization", "Bearer " + tokens.get(random.nextInt(tokens.size())));
+    }
+}
@@ -0,0 +1,112 @@
+package com.shyam.shop.Models;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// Response-body cost of the list endpoints: what GET /api/sweets and /api/auth/get spend in Jackson per call
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int size;
+
+    // Same settings Spring Boot applies to the MVC ObjectMapper
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private List<Sweet> sweets;
+    private List<User> users;
+    private List<UserSummary> userSummaries;
+    private byte[] sweetsJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        sweets = new ArrayList<>(size);
+        users = new ArrayList<>(size);
+        userSummaries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Sweet sweet = new Sweet();
+            sweet.setId(String.format("%024x", i));
+            sweet.setName("Kaju Katli " + i);
+            sweet.setCategory("Barfi");
+            sweet.setPrice(40.0 + i % 100);
+            sweet.setQuantity(i % 500);
+            sweet.setDescription("Cashew fudge with silver leaf, batch " + i);
+            sweet.setActive(true);
+            sweet.setCreatedAt(now);
+            sweet.setUpdatedAt(now);
+            sweets.add(sweet);
+
+            User user = new User();
+            user.setId(String.format("%024x", i));
+            user.setUsername("user" + i);
+            user.setEmail("user" + i + "@sweetshop.com");
+            user.setPassword("$2a$10$abcdefghijklmnopqrstuuMDYzv0Hn4U1Jv1bE0HfUKr3sDYbq4dS");
+            user.setRole(i % 50 == 0 ? Role.ADMIN : Role.USER);
+            user.setCreatedAt(now);
+            user.setUpdatedAt(now);
+            users.add(user);
+            userSummaries.add(new UserSummary(user.getId(), user.getUsername(), user.getEmail(), user.getRole(), true, null));
+        }
+        sweetsJson = objectMapper.writeValueAsBytes(sweets);
+    }
+
+    @Benchmark
+    public byte[] writeSweets() throws Exception {
+        return objectMapper.writeValueAsBytes(sweets);
+    }
+
+    // What a gzip-accepting client cost per request before the catalog was pre-rendered
+    @Benchmark
+    public byte[] writeSweetsGzip() throws Exception {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            objectMapper.writeValue(out, sweets);
+        }
+        return buffer.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] writeUsers() throws Exception {
+        return objectMapper.writeValueAsBytes(users);
+    }
+
+    // The projected rows GET /api/auth/get returns now, for comparison with writeUsers
+    @Benchmark
+    public byte[] writeUserSummaries() throws Exception {
+        return objectMapper.writeValueAsBytes(userSummaries);
+    }
+
+    @Benchmark
+    public Sweet[] readSweets() throws Exception {
+        return objectMapper.readValue(sweetsJson, Sweet[].class);
+    }
+}
@@ -0,0 +1,136 @@
+package com.shyam.shop.Repository;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.shyam.shop.Models.Sweet;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+// Catalog query latency with and without the declared indexes, against a real mongod. From Sweet_Backend:
+//   java -Dbench.mongo.uri=mongodb://localhost:27017 [-Dbench.sizes=10000,100000,1000000] \
+//        -cp sweet-benchmarks/target/benchmarks.jar com.shyam.shop.Repository.SweetQueryBenchmark
+public class SweetQueryBenchmark {
+
+    private static final String[] CATEGORIES = {"Chocolate", "Barfi", "Ladoo", "Halwa", "Candy", "Pastry", "Jalebi", "Peda"};
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 25;
+
+    public static void main(String[] args) {
+        String uri = System.getProperty("bench.mongo.uri");
+        if (uri == null) {
+            throw new IllegalArgumentException("Set -Dbench.mongo.uri to a real mongod; the embedded one has no query planner");
+        }
+        String sizes = System.getProperty("bench.sizes", "10000,100000,1000000");
+
+        try (MongoClient client = MongoClients.create(uri)) {
+            MongoTemplate template = new MongoTemplate(client, "sweet_bench");
+            System.out.printf("%-10s %-22s %12s %12s  %s%n", "docs", "query", "before(ms)", "after(ms)", "plan after");
+            for (String size : sizes.split(",")) {
+                int count = Integer.parseInt(size.trim());
+                seed(template, count);
+                run(template, count);
+            }
+            template.dropCollection(Sweet.class);
+        }
+    }
+
+    private static void run(MongoTemplate template, int count) {
+        template.indexOps(Sweet.class).dropAllIndexes();
+
+        Query legacyAll = new Query();
+        Query legacyName = new Query(Criteria.where("name").regex(Pattern.quote("ladoo 12"), "i"));
+        Query legacyCategory = new Query(Criteria.where("category").regex("^" + Pattern.quote("barfi") + "$", "i"));
+        Query legacyPrice = new Query(Criteria.where("price").gt(40.0).lt(45.0));
+
+        double all = time(() -> template.find(legacyAll, Sweet.class).stream().filter(s -> Boolean.TRUE.equals(s.isActive())).count());
+        double name = time(() -> template.find(legacyName, Sweet.class).size());
+        double category = time(() -> template.find(legacyCategory, Sweet.class).size());
+        double price = time(() -> template.find(legacyPrice, Sweet.class).size());
+
+        new MongoPersistentEntityIndexResolver(new MongoMappingContext())
+                .resolveIndexFor(Sweet.class)
+                .forEach(template.indexOps(Sweet.class)::ensureIndex);
+
+        Query activeAll = new Query(Criteria.where("active").is(true));
+        Query activeName = new Query(Criteria.where("active").is(true).and("nameNormalized").regex(Pattern.quote("ladoo 12")));
+        Query activeGrams = new Query(Criteria.where("active").is(true).and("nameGrams").all(Sweet.grams("ladoo 12"))
+                .and("nameNormalized").regex(Pattern.quote("ladoo 12")));
+        Query activeCategory = new Query(Criteria.where("active").is(true).and("categoryNormalized").is("barfi"));
+        Query activePrice = new Query(Criteria.where("active").is(true).and("price").gt(40.0).lt(45.0));
+
+        report(template, count, "all active", all, activeAll);
+        report(template, count, "name contains", name, activeName);
+        report(template, count, "name contains (grams)", name, activeGrams);
+        report(template, count, "category equals", category, activeCategory);
+        report(template, count, "price between", price, activePrice);
+    }
+
+    private static void report(MongoTemplate template, int count, String label, double before, Query after) {
+        double afterMs = time(() -> template.find(after, Sweet.class).size());
+        System.out.printf("%-10d %-22s %12.2f %12.2f  %s%n", count, label, before, afterMs, winningStage(template, after));
+    }
+
+    private static double time(Supplier<?> query) {
+        for (int i = 0; i < WARMUP; i++) {
+            query.get();
+        }
+        long[] samples = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            query.get();
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[ITERATIONS / 2] / 1_000_000.0;
+    }
+
+    private static String winningStage(MongoTemplate template, Query query) {
+        Document explain = template.getDb().runCommand(new Document("explain",
+                new Document("find", template.getCollectionName(Sweet.class)).append("filter", query.getQueryObject())));
+        Document plan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+        StringBuilder stages = new StringBuilder();
+        while (plan != null) {
+            stages.append(stages.length() == 0 ? "" : " <- ").append(plan.getString("stage"));
+            plan = plan.get("inputStage", Document.class);
+        }
+        return stages.toString();
+    }
+
+    private static void seed(MongoTemplate template, int count) {
+        template.dropCollection(Sweet.class);
+        Random random = new Random(42);
+        List<Sweet> batch = new ArrayList<>(10_000);
+        for (int i = 0; i < count; i++) {
+            String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+            Sweet sweet = new Sweet();
+            sweet.setName(category + " " + i);
+            sweet.setCategory(category);
+            sweet.setPrice(random.nextInt(50_000) / 100.0);
+            sweet.setQuantity(random.nextInt(500));
+            sweet.setDescription("Benchmark sweet " + i);
+            sweet.setActive(random.nextInt(10) != 0);
+            sweet.setCreatedAt(LocalDateTime.now());
+            sweet.setUpdatedAt(LocalDateTime.now());
+            batch.add(sweet);
+            if (batch.size() == 10_000) {
+                template.insert(batch, Sweet.class);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            template.insert(batch, Sweet.class);
+        }
+    }
+}
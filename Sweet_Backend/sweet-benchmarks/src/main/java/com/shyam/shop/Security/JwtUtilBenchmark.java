@@ -0,0 +1,73 @@
+package com.shyam.shop.Security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.concurrent.TimeUnit;
+
+// Token issue and the verify paths: the old JwtFilter path (three fresh parsers per request), the legacy
+// validate helper, one shared parse, and the verified-token cache.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private static final Key KEY = Keys.hmacShaKeyFor(
+            "MyVerySecureSweetShopSecretKeyThatIsAtLeast32CharactersLong!@#$%".getBytes(StandardCharsets.UTF_8));
+
+    private JwtUtil cached;
+    private JwtUtil uncached;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cached = new JwtUtil(10_000);
+        uncached = new JwtUtil(0);
+        token = cached.generateToken("bench@sweetshop.com", "USER");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return cached.generateToken("bench@sweetshop.com", "USER");
+    }
+
+    @Benchmark
+    public void legacyThreeParses(Blackhole bh) {
+        Claims first = Jwts.parserBuilder().setSigningKey(KEY).build().parseClaimsJws(token).getBody();
+        bh.consume(first.getSubject());
+        bh.consume(Jwts.parserBuilder().setSigningKey(KEY).build().parseClaimsJws(token).getBody().getSubject());
+        bh.consume(Jwts.parserBuilder().setSigningKey(KEY).build().parseClaimsJws(token).getBody().get("role", String.class));
+    }
+
+    @Benchmark
+    public boolean validateUncached() {
+        return uncached.validatejwttoken(token);
+    }
+
+    @Benchmark
+    public VerifiedToken sharedParserSingleParse() {
+        return uncached.verify(token);
+    }
+
+    @Benchmark
+    public VerifiedToken verifiedTokenCacheHit() {
+        return cached.verify(token);
+    }
+}
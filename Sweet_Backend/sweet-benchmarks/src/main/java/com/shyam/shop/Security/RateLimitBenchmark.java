@@ -0,0 +1,77 @@
+package com.shyam.shop.Security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// What the limiter adds per request: a rejected login through the whole filter (the bot path), an
+// unlimited route that only pays for rule matching, and buckets hit from several threads at once.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimitBenchmark {
+
+    private RateLimitFilter filter;
+    private TokenBuckets buckets;
+    private MockHttpServletRequest login;
+    private MockHttpServletRequest browse;
+
+    @Setup
+    public void setUp() throws Exception {
+        filter = new RateLimitFilter(new SimpleMeterRegistry(), true,
+                List.of("POST /api/auth/login 10 0.5", "POST /api/sweets/*/purchase 20 5"), 100_000, 3600);
+        login = new MockHttpServletRequest("POST", "/api/auth/login");
+        login.setRemoteAddr("203.0.113.7");
+        browse = new MockHttpServletRequest("GET", "/api/sweets");
+        // Drain the bucket so every measured login is a rejection
+        for (int i = 0; i < 20; i++) {
+            filter.doFilter(login, new MockHttpServletResponse(), new MockFilterChain());
+        }
+        buckets = new TokenBuckets(1_000_000, 1_000_000_000, 100_000);
+    }
+
+    @TearDown
+    public void tearDown() {
+        filter.stop();
+    }
+
+    @Benchmark
+    public int rejectedLogin() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(login, response, new MockFilterChain());
+        return response.getStatus();
+    }
+
+    @Benchmark
+    public int unlimitedRoute() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(browse, response, new MockFilterChain());
+        return response.getStatus();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long contendedAcquire() {
+        return buckets.tryAcquire("u:" + ThreadLocalRandom.current().nextInt(64), System.nanoTime());
+    }
+}
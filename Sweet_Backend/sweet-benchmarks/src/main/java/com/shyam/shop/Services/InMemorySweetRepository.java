@@ -0,0 +1,103 @@
+package com.shyam.shop.Services;
+
+import com.shyam.shop.Models.Sweet;
+import com.shyam.shop.Repository.SweetRepository;
+import com.shyam.shop.Repository.SweetSearch;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+// SweetRepository stand-in backed by a map, so the service benchmarks measure SweetService and not Mongo.
+// Only the methods the read paths call are implemented; anything else fails loudly.
+class InMemorySweetRepository implements InvocationHandler {
+
+    private final Map<String, Sweet> sweets = new ConcurrentHashMap<>();
+
+    static SweetRepository create(Collection<Sweet> initial) {
+        InMemorySweetRepository handler = new InMemorySweetRepository();
+        initial.forEach(sweet -> handler.sweets.put(sweet.getId(), sweet));
+        return (SweetRepository) Proxy.newProxyInstance(
+                SweetRepository.class.getClassLoader(), new Class<?>[]{SweetRepository.class}, handler);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "findByActiveTrue":
+                return sweets.values().stream().filter(sweet -> Boolean.TRUE.equals(sweet.isActive())).toList();
+            case "search":
+                return search((SweetSearch) args[0]);
+            case "findFirstByOrderByUpdatedAtDesc":
+                return sweets.values().stream()
+                        .filter(sweet -> sweet.getUpdatedAt() != null)
+                        .max(Comparator.comparing(Sweet::getUpdatedAt));
+            case "findById":
+                return Optional.ofNullable(sweets.get((String) args[0]));
+            case "save":
+                Sweet sweet = (Sweet) args[0];
+                sweets.put(sweet.getId(), sweet);
+                return sweet;
+            case "count":
+                return (long) sweets.size();
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "InMemorySweetRepository(" + sweets.size() + " sweets)";
+            default:
+                throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    // Mirrors SweetSearch.toQuery(): filters, then (sort key, id) order, keyset seek and limit
+    private List<Sweet> search(SweetSearch search) {
+        Predicate<Sweet> filter = sweet -> Boolean.TRUE.equals(sweet.isActive());
+        if (search.getName() != null && !search.getName().isEmpty()) {
+            filter = filter.and(sweet -> sweet.getNameNormalized() != null && sweet.getNameNormalized().contains(search.getName()));
+        }
+        if (search.getCategory() != null && !search.getCategory().isEmpty()) {
+            filter = filter.and(sweet -> search.getCategory().equals(sweet.getCategoryNormalized()));
+        }
+        if (search.getMinPrice() != null) {
+            filter = filter.and(sweet -> sweet.getPrice() >= search.getMinPrice());
+        }
+        if (search.getMaxPrice() != null) {
+            filter = filter.and(sweet -> sweet.getPrice() <= search.getMaxPrice());
+        }
+
+        SweetSearch.SortKey key = search.getSortKey();
+        Comparator<Sweet> order = Comparator.comparing((Sweet sweet) -> comparable(key.valueOf(sweet)))
+                .thenComparing(Sweet::getId);
+        if (search.isDescending()) {
+            order = order.reversed();
+        }
+        if (search.getAfterId() != null) {
+            Comparable<Object> afterValue = comparable(search.getAfterValue());
+            filter = filter.and(sweet -> {
+                int byKey = comparable(key.valueOf(sweet)).compareTo(afterValue);
+                int position = byKey != 0 ? byKey : sweet.getId().compareTo(search.getAfterId());
+                return search.isDescending() ? position < 0 : position > 0;
+            });
+        }
+
+        return sweets.values().stream()
+                .filter(filter)
+                .sorted(order)
+                .limit(search.getLimit())
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> comparable(Object value) {
+        return (Comparable<Object>) value;
+    }
+}
@@ -0,0 +1,113 @@
+package com.shyam.shop.Services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shyam.shop.Models.Sweet;
+import com.shyam.shop.Models.SweetPage;
+import com.shyam.shop.Repository.SweetRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// SweetService read paths over an in-memory repository: the catalog snapshot for listing and the catalog
+// columns for search (cursor, paging, facets), without any Mongo round trip.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SweetServiceBenchmark {
+
+    private static final String[] CATEGORIES = {"Chocolate", "Barfi", "Ladoo", "Halwa", "Candy", "Pastry", "Jalebi", "Peda"};
+
+    @Param({"100", "10000"})
+    public int size;
+
+    private SweetService sweetService;
+    private SweetCatalog catalog;
+    private String secondPageCursor;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        List<Sweet> sweets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+            Sweet sweet = new Sweet();
+            sweet.setId(String.format("%024x", i));
+            sweet.setName(category + " " + i);
+            sweet.setCategory(category);
+            sweet.setPrice(random.nextInt(50_000) / 100.0);
+            sweet.setQuantity(random.nextInt(500));
+            sweet.setActive(random.nextInt(10) != 0);
+            sweet.setCreatedAt(now.minusMinutes(i));
+            sweet.setUpdatedAt(now);
+            sweet.setRevision(1L);
+            sweets.add(sweet);
+        }
+        SweetRepository repository = InMemorySweetRepository.create(sweets);
+
+        ChangeEventBus events = new LocalChangeEventBus(new SimpleMeterRegistry());
+        catalog = new SweetCatalog();
+        ReflectionTestUtils.setField(catalog, "sweetRepository", repository);
+        ReflectionTestUtils.setField(catalog, "tombstoneTtlSeconds", 600L);
+        catalog.subscribe(events);
+        sweetService = new SweetService();
+        ReflectionTestUtils.setField(sweetService, "sweetRepository", repository);
+        ReflectionTestUtils.setField(sweetService, "catalog", catalog);
+        ReflectionTestUtils.setField(sweetService, "events", events);
+        ReflectionTestUtils.setField(sweetService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(sweetService, "catalogIndex",
+                new CatalogIndex(catalog, events, new SimpleMeterRegistry(), new double[]{100, 250, 500, 1000}, 600));
+
+        secondPageCursor = sweetService.searchSweets(null, "barfi", null, null, null, "price", "asc", null, 20, false).getNextCursor();
+    }
+
+    @Benchmark
+    public List<Sweet> getAllSweetsWarm() {
+        return sweetService.getAllSweets();
+    }
+
+    @Benchmark
+    public List<Sweet> getAllSweetsAfterInvalidate() {
+        catalog.invalidate();
+        return sweetService.getAllSweets();
+    }
+
+    @Benchmark
+    public SweetPage searchByCategoryFirstPage() {
+        return sweetService.searchSweets(null, "barfi", null, null, null, "price", "asc", null, 20, false);
+    }
+
+    @Benchmark
+    public SweetPage searchByCategorySecondPage() {
+        return sweetService.searchSweets(null, null, null, null, null, null, null, secondPageCursor, 20, false);
+    }
+
+    @Benchmark
+    public SweetPage searchByNameAndPrice() {
+        return sweetService.searchSweets("ladoo 1", null, 50.0, 400.0, null, "name", "desc", null, 20, false);
+    }
+
+    @Benchmark
+    public SweetPage searchByCategoryWithFacets() {
+        return sweetService.searchSweets(null, "barfi", null, null, null, "price", "asc", null, 20, true);
+    }
+}
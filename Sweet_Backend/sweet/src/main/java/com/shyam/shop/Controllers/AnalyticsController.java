@@ -0,0 +1,39 @@
+package com.shyam.shop.Controllers;
+
+import com.shyam.shop.Services.SalesAnalytics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/analytics")
+@CrossOrigin(origins = "*")
+public class AnalyticsController {
+
+    private static final int MAX_TOP = 100;
+
+    @Autowired
+    private SalesAnalytics salesAnalytics;
+
+
+    // Served from in-memory counters (other nodes merged from their last checkpoints), so dashboards can poll it without touching Mongo
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/sales")
+    public ResponseEntity<?> getSales(
+            @RequestParam(defaultValue = "hour") String granularity,
+            @RequestParam(required = false) Integer buckets,
+            @RequestParam(defaultValue = "10") int top
+    ) {
+        SalesAnalytics.Granularity size;
+        try {
+            size = SalesAnalytics.Granularity.valueOf(granularity.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "granularity must be minute, hour or day"));
+        }
+        int count = buckets == null ? size.getRetained() : buckets;
+        return ResponseEntity.ok(salesAnalytics.report(size, count, Math.max(1, Math.min(top, MAX_TOP))));
+    }
+}
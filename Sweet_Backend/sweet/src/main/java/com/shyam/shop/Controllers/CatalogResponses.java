@@ -0,0 +1,83 @@
+package com.shyam.shop.Controllers;
+
+import com.shyam.shop.Services.CatalogSnapshot;
+import com.shyam.shop.Services.RenderedCatalog;
+import com.shyam.shop.Services.RenderedCatalog.Encoding;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.Locale;
+import java.util.function.Function;
+
+// Serves the full catalog from its pre-rendered bytes in the best coding the client accepts
+final class CatalogResponses {
+
+    private CatalogResponses() {
+    }
+
+    static ResponseEntity<byte[]> list(ServletWebRequest request, CatalogSnapshot catalog,
+                                       Function<CatalogSnapshot, RenderedCatalog> renderer) {
+        Encoding encoding = negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (request.getResponse() != null) {
+            request.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (ConditionalRequests.notModified(request, RenderedCatalog.eTag(catalog, encoding), catalog.getLastModifiedMillis())) {
+            return null;
+        }
+
+        byte[] body = renderer.apply(catalog).body(encoding);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(body.length);
+        if (encoding.getToken() != null) {
+            response.header(HttpHeaders.CONTENT_ENCODING, encoding.getToken());
+        }
+        return response.body(body);
+    }
+
+    // Highest q-value wins; gzip beats deflate on a tie since some clients mishandle raw deflate
+    static Encoding negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return Encoding.IDENTITY;
+        }
+        double gzip = 0;
+        double deflate = 0;
+        double wildcard = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] pieces = part.split(";");
+            String coding = pieces[0].trim().toLowerCase(Locale.ROOT);
+            double q = quality(pieces);
+            switch (coding) {
+                case "gzip", "x-gzip" -> gzip = Math.max(gzip, q);
+                case "deflate" -> deflate = Math.max(deflate, q);
+                case "*" -> wildcard = q;
+                default -> {
+                }
+            }
+        }
+        if (wildcard >= 0) {
+            gzip = acceptEncoding.contains("gzip") ? gzip : wildcard;
+            deflate = acceptEncoding.contains("deflate") ? deflate : wildcard;
+        }
+        if (gzip > 0 && gzip >= deflate) {
+            return Encoding.GZIP;
+        }
+        return deflate > 0 ? Encoding.DEFLATE : Encoding.IDENTITY;
+    }
+
+    private static double quality(String[] pieces) {
+        for (int i = 1; i < pieces.length; i++) {
+            String parameter = pieces[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
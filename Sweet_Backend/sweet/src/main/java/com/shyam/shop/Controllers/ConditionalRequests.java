@@ -0,0 +1,28 @@
+package com.shyam.shop.Controllers;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+// Conditional GET support for the catalog read endpoints
+final class ConditionalRequests {
+
+    // Responses depend on the caller's token, so shared caches must not keep them; browsers revalidate every time
+    private static final String CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
+
+    private ConditionalRequests() {
+    }
+
+    // True when the client's copy is still current: the 304 status and validators are already on the response
+    // and the handler should return without building a body. Otherwise the validators are set for the 200.
+    static boolean notModified(ServletWebRequest request, String eTag, long lastModifiedMillis) {
+        revalidate(request);
+        return request.checkNotModified(eTag, lastModifiedMillis);
+    }
+
+    static void revalidate(ServletWebRequest request) {
+        if (request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        }
+    }
+}
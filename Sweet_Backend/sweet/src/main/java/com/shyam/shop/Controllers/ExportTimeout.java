@@ -0,0 +1,46 @@
+package com.shyam.shop.Controllers;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+// Streaming exports can run for minutes. Handlers that mark their request get the export timeout;
+// every other async request keeps the container default.
+@Configuration
+public class ExportTimeout implements WebMvcConfigurer {
+
+    private static final String ATTRIBUTE = ExportTimeout.class.getName();
+
+    private final long timeoutMillis;
+
+    public ExportTimeout(@Value("${shop.export.timeout-minutes:30}") long timeoutMinutes) {
+        this.timeoutMillis = TimeUnit.MINUTES.toMillis(timeoutMinutes);
+    }
+
+    static void mark(HttpServletRequest request) {
+        request.setAttribute(ATTRIBUTE, Boolean.TRUE);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                // Runs before the async context starts, so the timeout set here is the one it uses
+                if (request instanceof AsyncWebRequest async
+                        && request.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null) {
+                    async.setTimeout(timeoutMillis);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,76 @@
+package com.shyam.shop.Controllers;
+
+import com.shyam.shop.Models.Sweet;
+import com.shyam.shop.Services.CatalogSnapshot;
+import com.shyam.shop.Services.ReactiveSweetService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+// Same routes and responses as SweetQueryController, but the request thread is released while Mongo answers
+@RestController
+@RequestMapping("/api/sweets")
+@CrossOrigin(origins = "*")
+@ConditionalOnProperty(name = "shop.catalog.reactive", havingValue = "true")
+public class ReactiveSweetController {
+
+    @Autowired
+    private ReactiveSweetService reactiveSweetService;
+
+
+    @GetMapping
+    public Mono<ResponseEntity<?>> getAllSweets(ServletWebRequest request) {
+        CatalogSnapshot catalog = reactiveSweetService.peekCatalog();
+        if (catalog != null) {
+            ResponseEntity<byte[]> response = CatalogResponses.list(request, catalog, reactiveSweetService::render);
+            return Mono.just(response != null ? response : ResponseEntity.status(HttpStatus.NOT_MODIFIED).build());
+        }
+        // Cold catalog: the digest depends only on content, so the Mongo result yields the same ETag the snapshot will
+        ConditionalRequests.revalidate(request);
+        return reactiveSweetService.getAllSweets().<ResponseEntity<?>>map(sweets -> ResponseEntity.ok()
+                .eTag(CatalogSnapshot.of(0, sweets, null).getETag())
+                .body(sweets));
+    }
+
+
+    @GetMapping("/search")
+    public Mono<ResponseEntity<?>> searchSweets(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String stock,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean facets,
+            ServletWebRequest request
+    ) {
+        CatalogSnapshot catalog = reactiveSweetService.peekCatalog();
+        if (catalog != null && ConditionalRequests.notModified(request, catalog.getETag(), catalog.getLastModifiedMillis())) {
+            return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).build());
+        }
+        return reactiveSweetService.searchSweets(name, category, minPrice, maxPrice, stock, sort, direction, cursor, limit, facets)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .onErrorResume(IllegalArgumentException.class, ex -> Mono.just(
+                        ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", ex.getMessage()))));
+    }
+
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<?>> getSweet(@PathVariable String id, ServletWebRequest request) {
+        return reactiveSweetService.getSweet(id)
+                .<ResponseEntity<?>>map(sweet -> ConditionalRequests.notModified(
+                        request, CatalogSnapshot.eTagOf(sweet), CatalogSnapshot.toMillis(sweet.getUpdatedAt()))
+                        ? ResponseEntity.status(HttpStatus.NOT_MODIFIED).build()
+                        : ResponseEntity.ok(sweet))
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Sweet not found")));
+    }
+}
@@ -1,15 +1,32 @@
 package com.shyam.shop.Controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shyam.shop.Models.CheckoutRequest;
+import com.shyam.shop.Models.ImportProgress;
 import com.shyam.shop.Models.Sweet;
+import com.shyam.shop.Services.CatalogImportService;
+import com.shyam.shop.Services.CheckoutException;
+import com.shyam.shop.Services.StockStream;
+import com.shyam.shop.Services.StreamingExport;
 import com.shyam.shop.Services.SweetService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.Principal;
 import java.util.Map;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/sweets")
@@ -19,6 +36,15 @@ public class SweetController {
     @Autowired
     private SweetService sweetService;
 
+    @Autowired
+    private CatalogImportService catalogImportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private StockStream stockStream;
+
 
     @PreAuthorize("hasRole('ADMIN')")
     @PostMapping
@@ -27,22 +53,56 @@ public class SweetController {
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
 
-    @GetMapping
-    public ResponseEntity<List<Sweet>> getAllSweets() {
-        return ResponseEntity.ok(sweetService.getAllSweets());
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportSweets(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean includeInactive,
+            HttpServletRequest request
+    ) {
+        ExportTimeout.mark(request);
+        boolean ndjson = StreamingExport.isNdjson(format);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(ndjson ? StreamingExport.NDJSON : MediaType.APPLICATION_JSON_VALUE))
+                .body(out -> sweetService.exportCatalog(out, ndjson, includeInactive));
     }
 
+    // Live stock levels: a "snapshot" event first (unless ?snapshot=false), then "stock" events with the
+    // sweets that changed in each coalescing window, and "reset" when the client should reload everything.
+    // EventSource clients pass the JWT as ?access_token= since they cannot set the Authorization header.
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamStock(@RequestParam(defaultValue = "true") boolean snapshot) {
+        SseEmitter emitter = stockStream.open(snapshot);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                // Stops nginx-style proxies from buffering the stream
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
 
-    @GetMapping("/search")
-    public ResponseEntity<List<Sweet>> searchSweets(
-            @RequestParam(required = false) String name,
-            @RequestParam(required = false) String category,
-            @RequestParam(required = false) Double minPrice,
-            @RequestParam(required = false) Double maxPrice
+    // Typeahead completions of a name or category prefix, from memory; rank is popularity (default) or stock
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggest(
+            @RequestParam String q,
+            @RequestParam(required = false) String rank,
+            @RequestParam(required = false) Integer limit
     ) {
-        return ResponseEntity.ok(
-                sweetService.searchSweets(name, category, minPrice, maxPrice)
-        );
+        try {
+            return ResponseEntity.ok(Map.of("items", sweetService.suggest(q, rank, limit)));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        }
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCatalogStats() {
+        return ResponseEntity.ok(sweetService.getCatalogStats());
     }
 
 
@@ -57,6 +117,20 @@ public class SweetController {
     }
 
 
+    @PreAuthorize("hasRole('ADMIN')")
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patchSweet(
+            @PathVariable String id,
+            @RequestBody Sweet changes
+    ) {
+        try {
+            return ResponseEntity.ok(sweetService.patchSweet(id, changes));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        }
+    }
+
+
     @PreAuthorize("hasRole('ADMIN')")
     @DeleteMapping("/{id}")
     public ResponseEntity<Map<String, String>> deleteSweet(@PathVariable String id) {
@@ -69,13 +143,27 @@ public class SweetController {
     @PostMapping("/{id}/purchase")
     public ResponseEntity<Sweet> purchaseSweet(
             @PathVariable String id,
-            @RequestParam int quantity
+            @RequestParam int quantity,
+            Principal principal
     ) {
-        Sweet purchased = sweetService.purchaseSweet(id, quantity);
+        Sweet purchased = sweetService.purchaseSweet(id, quantity, principal.getName());
         return ResponseEntity.ok(purchased);
     }
 
 
+    @PreAuthorize("hasRole('USER')")
+    @PostMapping("/checkout")
+    public ResponseEntity<?> checkout(@RequestBody CheckoutRequest request, Principal principal) {
+        try {
+            return ResponseEntity.ok(Map.of("items", sweetService.checkout(request, principal.getName())));
+        } catch (CheckoutException ex) {
+            HttpStatus status = ex.isInvalidRequest() ? HttpStatus.BAD_REQUEST : HttpStatus.CONFLICT;
+            return ResponseEntity.status(status)
+                    .body(Map.of("error", ex.getMessage(), "failures", ex.getFailures()));
+        }
+    }
+
+
     @PreAuthorize("hasRole('ADMIN')")
     @PostMapping("/{id}/restock")
     public ResponseEntity<Sweet> restockSweet(
@@ -85,4 +173,32 @@ public class SweetController {
         Sweet restocked = sweetService.restockSweet(id, quantity);
         return ResponseEntity.ok(restocked);
     }
+
+
+    // Body is the raw CSV (with header) or NDJSON file; progress comes back as one NDJSON line per batch
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/import", produces = "application/x-ndjson")
+    public void importSweets(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "upsert") String mode,
+            @RequestParam(required = false) Integer batchSize,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        response.setContentType("application/x-ndjson");
+        OutputStream out = response.getOutputStream();
+        Consumer<ImportProgress> writeLine = progress -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(progress));
+                out.write('\n');
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+
+        ImportProgress summary = catalogImportService.importCatalog(
+                request.getInputStream(), format, "restock".equalsIgnoreCase(mode), batchSize, writeLine);
+        writeLine.accept(summary);
+    }
 }
@@ -0,0 +1,76 @@
+package com.shyam.shop.Controllers;
+
+import com.shyam.shop.Models.Sweet;
+import com.shyam.shop.Services.CatalogSnapshot;
+import com.shyam.shop.Services.SweetService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.Map;
+
+// Catalog reads on the blocking stack; ReactiveSweetController replaces it when shop.catalog.reactive=true
+@RestController
+@RequestMapping("/api/sweets")
+@CrossOrigin(origins = "*")
+@ConditionalOnProperty(name = "shop.catalog.reactive", havingValue = "false", matchIfMissing = true)
+public class SweetQueryController {
+
+    @Autowired
+    private SweetService sweetService;
+
+
+    @GetMapping
+    public ResponseEntity<byte[]> getAllSweets(ServletWebRequest request) {
+        return CatalogResponses.list(request, sweetService.getCatalog(), sweetService::render);
+    }
+
+
+    // stock filters by level (in, low, out; comma-separated); facets=true adds category, price and stock counts
+    @GetMapping("/search")
+    public ResponseEntity<?> searchSweets(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String stock,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean facets,
+            ServletWebRequest request
+    ) {
+        // Validators are taken before the query, so the page can only be newer than the tag it carries
+        CatalogSnapshot catalog = sweetService.getCatalog();
+        if (ConditionalRequests.notModified(request, catalog.getETag(), catalog.getLastModifiedMillis())) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok(
+                    sweetService.searchSweets(name, category, minPrice, maxPrice, stock, sort, direction, cursor, limit, facets)
+            );
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", ex.getMessage()));
+        }
+    }
+
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getSweet(@PathVariable String id, ServletWebRequest request) {
+        try {
+            Sweet sweet = sweetService.getSweet(id);
+            if (ConditionalRequests.notModified(request, CatalogSnapshot.eTagOf(sweet), CatalogSnapshot.toMillis(sweet.getUpdatedAt()))) {
+                return null;
+            }
+            return ResponseEntity.ok(sweet);
+        } catch (RuntimeException ex) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", ex.getMessage()));
+        }
+    }
+}
@@ -1,51 +1,67 @@
 package com.shyam.shop.Controllers;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shyam.shop.Models.Role;
 import com.shyam.shop.Models.User;
-import com.shyam.shop.Repository.AuthRepository;
+import com.shyam.shop.Models.UserSummary;
 import com.shyam.shop.Security.JwtUtil;
+import com.shyam.shop.Security.VerifiedToken;
 import com.shyam.shop.Services.AuthService;
+import com.shyam.shop.Services.PasswordHashingBusyException;
+import com.shyam.shop.Services.StreamingExport;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/auth")
 @CrossOrigin(origins = "*")
 public class UsersController  {
-    @Autowired
-    private  PasswordEncoder encoder;
     @Autowired
     AuthService service;
     @Autowired
     private JwtUtil jwtUtil;
     @Autowired
-    private AuthRepository repository;
+    private ObjectMapper objectMapper;
 
+    // Async so the Tomcat thread is released while BCrypt runs on the hashing pool
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody Map<String,String> request) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody Map<String,String> request) {
         String email=request.get("email");
         String password=request.get("password");
 
-        var opetional =repository.findByEmail(email);
+        var opetional =service.findByEmail(email);
         if(opetional.isEmpty()){
-            return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body(Map.of("error", "User Not Registered"));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "User Not Registered")));
         }
         User user=opetional.get();
-        if(!encoder.matches(password,user.getPassword())){
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(Map.of("error", "User Not Registered"));
+        try {
+            return service.checkPassword(user, password).<ResponseEntity<?>>thenApply(matches -> {
+                if(!matches){
+                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                            .body(Map.of("error", "User Not Registered"));
+                }
+                String token=jwtUtil.generateToken(user.getEmail(),user.getRole().name());
+                return ResponseEntity.status(HttpStatus.OK)
+                        .body(Map.of("token", token));
+            });
+        } catch (PasswordHashingBusyException ex) {
+            return CompletableFuture.completedFuture(busy(ex));
         }
-        String token=jwtUtil.generateToken(email,user.getRole().name());
-        return ResponseEntity.status(HttpStatus.OK)
-                .body(Map.of("token", token));
     }
 
     @GetMapping("/verify")
@@ -58,10 +74,10 @@ public class UsersController  {
 
             String token = authHeader.substring(7);
 
-            if (jwtUtil.validatejwttoken(token)) {
-                String email = jwtUtil.extractUsername(token);
-                String role = jwtUtil.extractRole(token);
-                System.out.println("called and success ");
+            VerifiedToken verified = jwtUtil.verify(token);
+            if (verified != null) {
+                String email = verified.getEmail();
+                String role = verified.getRole();
                 return ResponseEntity.ok(Map.of(
                         "valid", true,
                         "email", email,
@@ -82,62 +98,104 @@ public class UsersController  {
 
 
 
+    @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/get/{id}")
-    public ResponseEntity<User> get(@PathVariable String id){
-        User user = service.getByid(id);
+    public ResponseEntity<UserSummary> get(@PathVariable String id){
+        UserSummary user = service.getSummary(id);
         if (user != null) {
             return ResponseEntity.ok(user);
         }
         return ResponseEntity.notFound().build();
     }
 
+    // Keyset-paginated; pass nextCursor back as ?cursor= for the following page
+    @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/get")
-    public ResponseEntity<List<User>> getAll(){
-        return ResponseEntity.ok(service.getAllTodos());
+    public ResponseEntity<?> getAll(
+            @RequestParam(required = false) Role role,
+            @RequestParam(required = false) Boolean enabled,
+            @RequestParam(required = false) String email,
+            @RequestParam(defaultValue = "false") boolean newestFirst,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
+    ){
+        try {
+            return ResponseEntity.ok(service.listUsers(role, enabled, email, newestFirst, cursor, limit));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        }
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "ndjson") String format,
+                                                        HttpServletRequest request) {
+        ExportTimeout.mark(request);
+        boolean ndjson = StreamingExport.isNdjson(format);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(ndjson ? StreamingExport.NDJSON : MediaType.APPLICATION_JSON_VALUE))
+                .body(out -> service.exportUsers(out, ndjson));
     }
 
     @PostMapping("/create")
-    public ResponseEntity<?> create(@RequestBody User user) {
+    public CompletableFuture<ResponseEntity<?>> create(@RequestBody User user) {
         try {
-            User created = service.createTodo(user);
-            return ResponseEntity.status(HttpStatus.CREATED).body(created);
+            return service.createTodo(user)
+                    .<ResponseEntity<?>>thenApply(created -> ResponseEntity.status(HttpStatus.CREATED).body(created))
+                    .exceptionally(ex -> ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                            .body(Map.of("error", String.valueOf(unwrap(ex).getMessage()))));
+        } catch (PasswordHashingBusyException ex) {
+            return CompletableFuture.completedFuture(busy(ex));
         } catch (RuntimeException ex) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("error", ex.getMessage()));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", ex.getMessage())));
         }
     }
 
 
+    // Fields left out of the body keep their stored value, as does the password when it is blank
     @PutMapping("/update")
-    public ResponseEntity<?> update(@RequestBody User user) {
-        try {
-
-            User existingUser = service.getByid(user.getId());
-            if (existingUser == null) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(Map.of("error", "User not found"));
-            }
-
-
-            if (user.getPassword() != null && !user.getPassword().isEmpty()) {
-
-                if (!user.getPassword().startsWith("$2a$")) {
-                    String encodedPassword = encoder.encode(user.getPassword());
-                    user.setPassword(encodedPassword);
-                }
-            } else {
-
-                user.setPassword(existingUser.getPassword());
-            }
-
+    public CompletableFuture<ResponseEntity<?>> update(@RequestBody User user, Authentication authentication) {
+        return applyUpdate(user.getId(), user, authentication);
+    }
 
-            user.setUpdatedAt(LocalDateTime.now());
+    // Only the keys present in the body are written
+    @PatchMapping("/update/{id}")
+    public CompletableFuture<ResponseEntity<?>> patch(@PathVariable String id, @RequestBody Map<String, Object> body,
+                                                     Authentication authentication) {
+        User changes;
+        try {
+            changes = objectMapper.convertValue(body, User.class);
+        } catch (IllegalArgumentException ex) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "Invalid user fields")));
+        }
+        if (!body.containsKey("enabled")) {
+            // User defaults enabled to true, which would otherwise re-enable a disabled account
+            changes.setEnabled(null);
+        }
+        return applyUpdate(id, changes, authentication);
+    }
 
-            User updated = service.UpdateTodo(user);
-            return ResponseEntity.ok(updated);
-        } catch (Exception ex) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("error", ex.getMessage()));
+    // Async like create: a new password is hashed on the BCrypt pool, not on the Tomcat thread
+    private CompletableFuture<ResponseEntity<?>> applyUpdate(String id, User changes, Authentication authentication) {
+        ResponseEntity<?> denied = checkAccess(id, changes, authentication);
+        if (denied != null) {
+            return CompletableFuture.completedFuture(denied);
+        }
+        changes.setId(null);
+        changes.setCreatedAt(null);
+        try {
+            return service.UpdateTodo(id, changes)
+                    .<ResponseEntity<?>>thenApply(updated -> updated == null
+                            ? ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "User not found"))
+                            : ResponseEntity.ok(updated))
+                    .exceptionally(ex -> ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                            .body(Map.of("error", String.valueOf(unwrap(ex).getMessage()))));
+        } catch (PasswordHashingBusyException ex) {
+            return CompletableFuture.completedFuture(busy(ex));
+        } catch (RuntimeException ex) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", ex.getMessage())));
         }
     }
 
@@ -147,4 +205,38 @@ public class UsersController  {
         return Map.of("message",id + " Deleted");
     }
 
+
+    // Admins may update anyone; other users only their own account, without changing its role or enabled flag
+    private ResponseEntity<?> checkAccess(String id, User changes, Authentication authentication) {
+        boolean admin = authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+        if (admin) {
+            return null;
+        }
+        Optional<User> self = service.findByEmail(authentication.getName())
+                .filter(user -> user.getId() != null && user.getId().equals(id));
+        if (self.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "You can only update your own account"));
+        }
+        if (changes.getRole() != null && changes.getRole() != self.get().getRole()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "Only admins can change a role"));
+        }
+        // A PUT body always carries enabled (it defaults to true), so it is dropped rather than rejected
+        changes.setRole(null);
+        changes.setEnabled(null);
+        return null;
+    }
+
+    private ResponseEntity<?> busy(PasswordHashingBusyException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", ex.getMessage()));
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
 }
@@ -0,0 +1,15 @@
+package com.shyam.shop.Models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutFailure {
+
+    private String sweetId;
+    private Integer quantity;
+    private String reason;
+}
@@ -0,0 +1,25 @@
+package com.shyam.shop.Models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetCount {
+
+    private String value;
+    private Long count;
+
+    // Price buckets only: minPrice (inclusive) and maxPrice (exclusive, absent on the last bucket)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double min;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double max;
+
+    public FacetCount(String value, long count) {
+        this(value, count, null, null);
+    }
+}
@@ -0,0 +1,26 @@
+package com.shyam.shop.Models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportProgress {
+
+    private int batch;
+    private int batchRows;
+    private long rowsRead;
+    private long upserted;
+    private long modified;
+    private long failed;
+    private long elapsedMillis;
+    private long rowsPerSecond;
+    private boolean done;
+
+    // Sample of row-level errors from this batch, capped so a bad file cannot grow the response unbounded
+    private List<String> errors;
+}
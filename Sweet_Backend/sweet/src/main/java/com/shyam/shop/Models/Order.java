@@ -0,0 +1,39 @@
+package com.shyam.shop.Models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Append-only record of a completed purchase or checkout. Orders are never updated once written.
+@Document(collection = "orders")
+@CompoundIndex(name = "buyer_createdAt", def = "{'buyer': 1, 'createdAt': -1}")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Order {
+
+    // Assigned before the order is queued, so replaying the journal after a crash cannot store it twice
+    @Id
+    private String id;
+
+    private String buyer;
+    private List<Line> lines;
+    private Double total;
+    private LocalDateTime createdAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        private String sweetId;
+        private String name;
+        private Integer quantity;
+        private Double unitPrice;
+    }
+}
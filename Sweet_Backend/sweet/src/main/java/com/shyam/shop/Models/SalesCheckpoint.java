@@ -0,0 +1,37 @@
+package com.shyam.shop.Models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+import java.util.List;
+
+// Periodic copy of one in-memory sales bucket (or, with granularity "top", of the all-time top sellers)
+// so a restarted node picks up where it left off. Buckets expire once they fall out of their window.
+@Document(collection = "sales_checkpoints")
+@CompoundIndex(name = "node_granularity_start", def = "{'node': 1, 'granularity': 1, 'start': 1}")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesCheckpoint {
+
+    @Id
+    private String id;
+
+    private String node;
+    private String granularity;
+    // Epoch millis of the bucket start (UTC)
+    private Long start;
+
+    private List<SalesFigures> sweets;
+    private List<SalesFigures> categories;
+    private List<TopSeller> top;
+
+    @Indexed(expireAfterSeconds = 0)
+    private Date expiresAt;
+}
@@ -0,0 +1,18 @@
+package com.shyam.shop.Models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Units sold, revenue and units restocked for one sweet (key = sweet id) or one category (key = category)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesFigures {
+
+    private String key;
+    private String name;
+    private Long sold;
+    private Double revenue;
+    private Long restocked;
+}
@@ -0,0 +1,23 @@
+package com.shyam.shop.Models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// The part of a sweet that live stock updates carry; revision lets a client drop an update older than what it shows
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLevel {
+
+    private String id;
+    private Integer quantity;
+    private Double price;
+    private Boolean active;
+    private Long revision;
+
+    public static StockLevel of(Sweet sweet) {
+        return new StockLevel(sweet.getId(), sweet.getQuantity(), sweet.getPrice(),
+                Boolean.TRUE.equals(sweet.isActive()), sweet.getRevision());
+    }
+}
@@ -0,0 +1,19 @@
+package com.shyam.shop.Models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One typeahead completion; sold counts units bought through this node since the index was built,
+// seeded from the all-time top sellers
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Suggestion {
+
+    private String id;
+    private String name;
+    private String category;
+    private Integer quantity;
+    private Long sold;
+}
@@ -1,19 +1,33 @@
 package com.shyam.shop.Models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 @Document(collection = "sweets")
+@CompoundIndex(name = "active_category_price_id", def = "{'active': 1, 'categoryNormalized': 1, 'price': 1, '_id': 1}")
+@CompoundIndex(name = "active_price_id", def = "{'active': 1, 'price': 1, '_id': 1}")
+@CompoundIndex(name = "active_name_id", def = "{'active': 1, 'nameNormalized': 1, '_id': 1}")
+@CompoundIndex(name = "active_nameGrams", def = "{'active': 1, 'nameGrams': 1}")
+@CompoundIndex(name = "active_createdAt_id", def = "{'active': 1, 'createdAt': 1, '_id': 1}")
+@CompoundIndex(name = "pendingOrders_at", def = "{'pendingOrders.at': 1}", sparse = true)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Sweet {
 
+    public static final int GRAM = 3;
+
     @Id
     private String id;
 
@@ -23,8 +37,21 @@ public class Sweet {
     private Integer quantity;
     private String description;
 
+    // Lower-cased copies kept in sync by the setters so case-insensitive lookups can use an index
+    @JsonIgnore
+    private String nameNormalized;
+    @JsonIgnore
+    private String categoryNormalized;
+    // Every three-character run of nameNormalized, so a substring search can narrow candidates by index
+    @JsonIgnore
+    private List<String> nameGrams;
+
     private Boolean active;
 
+    // Bumped on every write so in-memory copies can tell which of two concurrent results is newer
+    @JsonIgnore
+    private Long revision;
+
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
@@ -42,6 +69,8 @@ public class Sweet {
 
     public void setName(String name) {
         this.name = name;
+        this.nameNormalized = normalize(name);
+        this.nameGrams = grams(nameNormalized);
     }
 
     public String getCategory() {
@@ -50,6 +79,19 @@ public class Sweet {
 
     public void setCategory(String category) {
         this.category = category;
+        this.categoryNormalized = normalize(category);
+    }
+
+    public String getNameNormalized() {
+        return nameNormalized;
+    }
+
+    public String getCategoryNormalized() {
+        return categoryNormalized;
+    }
+
+    public List<String> getNameGrams() {
+        return nameGrams;
     }
 
     public Double getPrice() {
@@ -84,6 +126,14 @@ public class Sweet {
         this.active = active;
     }
 
+    public Long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(Long revision) {
+        this.revision = revision;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -99,4 +149,20 @@ public class Sweet {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
-}
\ No newline at end of file
+
+    public static String normalize(String value) {
+        return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Distinct, in order of first appearance; empty for values shorter than GRAM
+    public static List<String> grams(String normalized) {
+        if (normalized == null) {
+            return null;
+        }
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM));
+        }
+        return List.copyOf(grams);
+    }
+}
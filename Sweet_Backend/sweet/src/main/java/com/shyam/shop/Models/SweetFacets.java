@@ -0,0 +1,19 @@
+package com.shyam.shop.Models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Counts for each facet apply every other filter of the search but not the facet's own, so selecting
+// "Chocolate" still shows how many sweets the other categories would give
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SweetFacets {
+
+    private List<FacetCount> categories;
+    private List<FacetCount> prices;
+    private List<FacetCount> stock;
+}
@@ -0,0 +1,27 @@
+package com.shyam.shop.Models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SweetPage {
+
+    private List<Sweet> items;
+
+    // Pass back as ?cursor= to fetch the next page; null on the last page
+    private String nextCursor;
+
+    // Only when the search asked for facets
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private SweetFacets facets;
+
+    public SweetPage(List<Sweet> items, String nextCursor) {
+        this(items, nextCursor, null);
+    }
+}
@@ -0,0 +1,17 @@
+package com.shyam.shop.Models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// sold may overcount by at most overestimate units, which is what keeps the all-time ranking bounded in size
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopSeller {
+
+    private String sweetId;
+    private String name;
+    private Long sold;
+    private Long overestimate;
+}
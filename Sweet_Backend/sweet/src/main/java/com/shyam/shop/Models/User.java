@@ -2,12 +2,17 @@ package com.shyam.shop.Models;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 
 @Document(collection = "users")
+// Back the admin user listing: every filter combination walks one index in _id order
+@CompoundIndex(name = "role_enabled_id", def = "{'role': 1, 'enabled': 1, '_id': 1}")
+@CompoundIndex(name = "role_id", def = "{'role': 1, '_id': 1}")
+@CompoundIndex(name = "enabled_id", def = "{'enabled': 1, '_id': 1}")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
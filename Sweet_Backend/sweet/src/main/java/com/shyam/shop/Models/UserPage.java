@@ -0,0 +1,18 @@
+package com.shyam.shop.Models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPage {
+
+    private List<UserSummary> items;
+
+    // Pass back as ?cursor= to fetch the next page; null on the last page
+    private String nextCursor;
+}
@@ -0,0 +1,30 @@
+package com.shyam.shop.Models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+
+import java.time.LocalDateTime;
+
+// Read-only projection of a users document without the password hash
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSummary {
+
+    public static final String[] FIELDS = {"username", "email", "role", "enabled", "createdAt"};
+    // The admin listing and lookup leave out timestamps as well
+    public static final String[] LIST_FIELDS = {"username", "email", "role", "enabled"};
+
+    @Id
+    private String id;
+
+    private String username;
+    private String email;
+    private Role role;
+    private Boolean enabled;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private LocalDateTime createdAt;
+}
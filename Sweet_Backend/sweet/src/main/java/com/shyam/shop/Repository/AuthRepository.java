@@ -7,6 +7,6 @@ import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
 @Repository
-public interface AuthRepository extends MongoRepository<User,String> {
+public interface AuthRepository extends MongoRepository<User,String>, AuthRepositoryCustom {
     Optional<User> findByEmail(String email);
 }
@@ -0,0 +1,31 @@
+package com.shyam.shop.Repository;
+
+import com.shyam.shop.Models.User;
+import com.shyam.shop.Models.UserSummary;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface AuthRepositoryCustom {
+
+    // Cursor-backed; the caller must close the stream
+    Stream<UserSummary> streamSummaries();
+
+    // Only the email field, cursor-backed; the caller must close the stream
+    Stream<String> streamEmails();
+
+    // The user as stored afterwards, or null when no user has this id
+    User updatePassword(String id, String encodedPassword);
+
+    // Id and email of every user whose stored email is not trimmed and lower-case
+    List<User> findUnnormalizedEmails();
+
+    // One findAndModify that sets only the non-null profile fields of changes; null when no user has this id
+    User updateFields(String id, User changes);
+
+    // Only UserSummary.LIST_FIELDS are read from Mongo; the password hash never leaves the database
+    List<UserSummary> findSummaries(UserFilter filter);
+
+    Optional<UserSummary> findSummaryById(String id);
+}
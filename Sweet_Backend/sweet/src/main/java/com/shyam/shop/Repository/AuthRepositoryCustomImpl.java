@@ -0,0 +1,87 @@
+package com.shyam.shop.Repository;
+
+import com.shyam.shop.Models.User;
+import com.shyam.shop.Models.UserSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public class AuthRepositoryCustomImpl implements AuthRepositoryCustom {
+
+    private static final int CURSOR_BATCH_SIZE = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public Stream<UserSummary> streamSummaries() {
+        Query query = new Query().cursorBatchSize(CURSOR_BATCH_SIZE);
+        query.fields().include(UserSummary.FIELDS);
+        return mongoTemplate.stream(query, UserSummary.class, mongoTemplate.getCollectionName(User.class));
+    }
+
+    @Override
+    public Stream<String> streamEmails() {
+        Query query = new Query().cursorBatchSize(CURSOR_BATCH_SIZE);
+        query.fields().include("email").exclude("id");
+        return mongoTemplate.stream(query, UserSummary.class, mongoTemplate.getCollectionName(User.class))
+                .map(UserSummary::getEmail);
+    }
+
+    @Override
+    public User updatePassword(String id, String encodedPassword) {
+        return mongoTemplate.findAndModify(
+                new Query(Criteria.where("id").is(id)),
+                new Update().set("password", encodedPassword).set("updatedAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true),
+                User.class
+        );
+    }
+
+    @Override
+    public List<User> findUnnormalizedEmails() {
+        Query query = new Query(Criteria.where("email").regex("[A-Z]|^\\s|\\s$"));
+        query.fields().include("email");
+        return mongoTemplate.find(query, User.class);
+    }
+
+    @Override
+    public User updateFields(String id, User changes) {
+        Update update = new Update().set("updatedAt", LocalDateTime.now());
+        setIfPresent(update, "username", changes.getUsername());
+        setIfPresent(update, "email", changes.getEmail());
+        setIfPresent(update, "password", changes.getPassword());
+        setIfPresent(update, "role", changes.getRole());
+        setIfPresent(update, "enabled", changes.getEnabled());
+        return mongoTemplate.findAndModify(new Query(Criteria.where("id").is(id)), update,
+                FindAndModifyOptions.options().returnNew(true), User.class);
+    }
+
+    @Override
+    public List<UserSummary> findSummaries(UserFilter filter) {
+        Query query = filter.toQuery();
+        query.fields().include(UserSummary.LIST_FIELDS);
+        return mongoTemplate.find(query, UserSummary.class, mongoTemplate.getCollectionName(User.class));
+    }
+
+    @Override
+    public Optional<UserSummary> findSummaryById(String id) {
+        Query query = new Query(Criteria.where("id").is(id));
+        query.fields().include(UserSummary.LIST_FIELDS);
+        return Optional.ofNullable(mongoTemplate.findOne(query, UserSummary.class, mongoTemplate.getCollectionName(User.class)));
+    }
+
+    private static void setIfPresent(Update update, String field, Object value) {
+        if (value != null) {
+            update.set(field, value);
+        }
+    }
+}
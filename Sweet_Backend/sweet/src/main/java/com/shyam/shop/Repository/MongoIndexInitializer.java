@@ -0,0 +1,101 @@
+package com.shyam.shop.Repository;
+
+import com.shyam.shop.Models.Order;
+import com.shyam.shop.Models.SalesCheckpoint;
+import com.shyam.shop.Models.Sweet;
+import com.shyam.shop.Models.User;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Auto index creation is off by default in Spring Boot, so the indexes declared on the models are
+// applied here once the app is up. It runs off the startup thread so a missing Mongo only logs a warning.
+@Component
+public class MongoIndexInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexInitializer.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoMappingContext mappingContext;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        Thread thread = new Thread(this::initialize, "mongo-index-init");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void initialize() {
+        try {
+            ensureIndexes(Sweet.class);
+            ensureIndexes(User.class);
+            ensureIndexes(Order.class);
+            ensureIndexes(SalesCheckpoint.class);
+        } catch (Exception e) {
+            log.warn("Could not ensure Mongo indexes: {}", e.getMessage());
+        }
+        try {
+            backfillNormalizedFields();
+        } catch (Exception e) {
+            log.warn("Could not backfill normalized sweet fields: {}", e.getMessage());
+        }
+    }
+
+    public void ensureIndexes(Class<?> type) {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        IndexOperations indexOps = mongoTemplate.indexOps(type);
+        resolver.resolveIndexFor(type).forEach(indexOps::ensureIndex);
+        log.info("Ensured indexes for {}", type.getSimpleName());
+    }
+
+    // Documents written before the normalized fields existed get them filled in server-side in one pass
+    private void backfillNormalizedFields() {
+        long updated = mongoTemplate.updateMulti(
+                new Query(Criteria.where("nameNormalized").exists(false)),
+                AggregationUpdate.update()
+                        .set("nameNormalized").toValue(lowerTrimmed("name"))
+                        .set("categoryNormalized").toValue(lowerTrimmed("category")),
+                Sweet.class
+        ).getModifiedCount();
+        updated += mongoTemplate.updateMulti(
+                new Query(Criteria.where("nameGrams").exists(false).and("nameNormalized").type(2)),
+                AggregationUpdate.from(List.of(context -> new Document("$set", new Document("nameGrams", nameGrams())))),
+                Sweet.class
+        ).getModifiedCount();
+        if (updated > 0) {
+            log.info("Backfilled normalized search fields on {} sweets", updated);
+        }
+    }
+
+    // The distinct Sweet.GRAM-character substrings of nameNormalized, as Sweet.grams() computes them
+    private static Document nameGrams() {
+        Document starts = new Document("$range", List.of(0, new Document("$max", List.of(0,
+                new Document("$subtract", List.of(new Document("$strLenCP", "$nameNormalized"), Sweet.GRAM - 1))))));
+        Document substrings = new Document("$map", new Document("input", starts)
+                .append("as", "i")
+                .append("in", new Document("$substrCP", List.of("$nameNormalized", "$$i", Sweet.GRAM))));
+        return new Document("$setUnion", List.of(substrings));
+    }
+
+    private static StringOperators.ToLower lowerTrimmed(String field) {
+        return StringOperators.valueOf(StringOperators.valueOf(field).trim()).toLower();
+    }
+}
@@ -0,0 +1,12 @@
+package com.shyam.shop.Repository;
+
+import com.shyam.shop.Models.Order;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OrderRepository extends MongoRepository<Order, String>, OrderRepositoryCustom {
+    List<Order> findByBuyerOrderByCreatedAtDesc(String buyer);
+}
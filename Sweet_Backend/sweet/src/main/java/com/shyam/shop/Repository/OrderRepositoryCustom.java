@@ -0,0 +1,12 @@
+package com.shyam.shop.Repository;
+
+import com.shyam.shop.Models.Order;
+
+import java.util.List;
+
+public interface OrderRepositoryCustom {
+
+    // Inserts the batch in one unordered bulk write, skipping orders whose id is already stored.
+    // Returns how many were new.
+    int insertNew(List<Order> orders);
+}
@@ -0,0 +1,11 @@
+package com.shyam.shop.Repository;
+
+import com.shyam.shop.Models.Sweet;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+// Non-blocking twin of SweetRepository for the read endpoints; writes still go through SweetRepository
+public interface ReactiveSweetRepository extends ReactiveMongoRepository<Sweet, String>, ReactiveSweetRepositoryCustom {
+
+    Flux<Sweet> findByActiveTrue();
+}
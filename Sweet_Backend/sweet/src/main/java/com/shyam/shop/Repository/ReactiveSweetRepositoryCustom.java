@@ -0,0 +1,10 @@
+package com.shyam.shop.Repository;
+
+import com.shyam.shop.Models.Sweet;
+import reactor.core.publisher.Flux;
+
+public interface ReactiveSweetRepositoryCustom {
+
+    // Same contract as SweetRepositoryCustom.search, emitted as the rows arrive from the driver
+    Flux<Sweet> search(SweetSearch search);
+}
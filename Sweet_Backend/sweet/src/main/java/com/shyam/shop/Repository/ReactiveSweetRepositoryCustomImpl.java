@@ -0,0 +1,17 @@
+package com.shyam.shop.Repository;
+
+import com.shyam.shop.Models.Sweet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+
+public class ReactiveSweetRepositoryCustomImpl implements ReactiveSweetRepositoryCustom {
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public Flux<Sweet> search(SweetSearch search) {
+        return reactiveMongoTemplate.find(search.toQuery(), Sweet.class);
+    }
+}
@@ -4,12 +4,12 @@ import com.shyam.shop.Models.Sweet;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.List;
+import java.util.Optional;
 
-public interface SweetRepository extends MongoRepository<Sweet, String> {
+public interface SweetRepository extends MongoRepository<Sweet, String>, SweetRepositoryCustom {
 
-    List<Sweet> findByNameContainingIgnoreCase(String name);
+    List<Sweet> findByActiveTrue();
 
-    List<Sweet> findByCategoryIgnoreCase(String category);
-
-    List<Sweet> findByPriceBetween(double minPrice, double maxPrice);
+    // Includes inactive sweets, so a delete still moves the catalog's Last-Modified forward
+    Optional<Sweet> findFirstByOrderByUpdatedAtDesc();
 }
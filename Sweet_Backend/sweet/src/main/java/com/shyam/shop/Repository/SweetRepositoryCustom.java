@@ -0,0 +1,49 @@
+package com.shyam.shop.Repository;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.shyam.shop.Models.Sweet;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public interface SweetRepositoryCustom {
+
+    // Returns at most search.getLimit() active sweets matching every given criterion, ordered by the sort key then _id
+    List<Sweet> search(SweetSearch search);
+
+    // Cursor-backed; the caller must close the stream
+    Stream<Sweet> streamAll(boolean includeInactive);
+
+    // Decrements stock only if the sweet is active and has at least quantity left; null when that condition fails
+    Sweet purchase(String id, int quantity);
+
+    // The write methods below are single findAndModify calls returning the sweet as stored afterwards, or null
+    // when no sweet has this id. With partial, null fields of changes are left alone; otherwise they are removed.
+    Sweet updateFields(String id, Sweet changes, boolean partial);
+
+    Sweet deactivate(String id);
+
+    Sweet restock(String id, int quantity);
+
+    // Conditionally decrements every line in one bulk write, tagging each decremented sweet with orderId.
+    // Returns how many lines were applied; the caller must then commit or roll back the order.
+    int reserve(String orderId, Map<String, Integer> quantities);
+
+    // Renews the reservation on every line first, so the sweeper cannot release one mid-commit, and only then
+    // drops the tags. False when the sweeper already released a line: nothing is committed and the lines that
+    // are still tagged are left for rollbackReservation.
+    boolean commitReservation(String orderId, Collection<String> ids);
+
+    void rollbackReservation(String orderId, Map<String, Integer> quantities);
+
+    // Hands back the stock of reservations taken before cutoff and never committed or rolled back, typically
+    // because the process died in between. Returns the sweets as stored afterwards.
+    List<Sweet> releaseExpiredReservations(LocalDateTime cutoff);
+
+    // Upserts rows by id, or by normalized name when no id is given. With restock the row quantity is added
+    // to the stored stock instead of replacing it.
+    BulkWriteResult upsertBatch(List<Sweet> rows, boolean restock);
+}
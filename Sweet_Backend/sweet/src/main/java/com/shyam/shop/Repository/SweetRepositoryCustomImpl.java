@@ -0,0 +1,215 @@
+package com.shyam.shop.Repository;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.shyam.shop.Models.Sweet;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class SweetRepositoryCustomImpl implements SweetRepositoryCustom {
+
+    // Each reservation is tagged as {order, quantity, at} so a sweeper can hand back stock an order never settled
+    private static final String PENDING_ORDERS = "pendingOrders";
+    private static final int CURSOR_BATCH_SIZE = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Sweet> search(SweetSearch search) {
+        return mongoTemplate.find(search.toQuery(), Sweet.class);
+    }
+
+    @Override
+    public Stream<Sweet> streamAll(boolean includeInactive) {
+        Query query = includeInactive ? new Query() : new Query(Criteria.where("active").is(true));
+        return mongoTemplate.stream(query.cursorBatchSize(CURSOR_BATCH_SIZE), Sweet.class);
+    }
+
+    @Override
+    public Sweet purchase(String id, int quantity) {
+        Query query = new Query(Criteria.where("id").is(id)
+                .and("active").is(true)
+                .and("quantity").gte(quantity));
+        Update update = new Update()
+                .inc("quantity", -quantity)
+                .inc("revision", 1)
+                .set("updatedAt", LocalDateTime.now());
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Sweet.class);
+    }
+
+    @Override
+    public Sweet updateFields(String id, Sweet changes, boolean partial) {
+        Update update = touch(new Update());
+        setOrUnset(update, "name", changes.getName(), partial);
+        setOrUnset(update, "nameNormalized", changes.getNameNormalized(), partial);
+        setOrUnset(update, "nameGrams", changes.getNameGrams(), partial);
+        setOrUnset(update, "category", changes.getCategory(), partial);
+        setOrUnset(update, "categoryNormalized", changes.getCategoryNormalized(), partial);
+        setOrUnset(update, "price", changes.getPrice(), partial);
+        setOrUnset(update, "quantity", changes.getQuantity(), partial);
+        setOrUnset(update, "description", changes.getDescription(), partial);
+        return modify(id, update);
+    }
+
+    @Override
+    public Sweet deactivate(String id) {
+        return modify(id, touch(new Update().set("active", false)));
+    }
+
+    @Override
+    public Sweet restock(String id, int quantity) {
+        return modify(id, touch(new Update().inc("quantity", quantity)));
+    }
+
+    @Override
+    public int reserve(String orderId, Map<String, Integer> quantities) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Sweet.class);
+        LocalDateTime now = LocalDateTime.now();
+        Date reservedAt = toDate(now);
+        quantities.forEach((id, quantity) -> bulk.updateOne(
+                new Query(Criteria.where("id").is(id).and("active").is(true).and("quantity").gte(quantity)),
+                new Update()
+                        .inc("quantity", -quantity)
+                        .inc("revision", 1)
+                        .set("updatedAt", now)
+                        .push(PENDING_ORDERS, new Document("order", orderId).append("quantity", quantity).append("at", reservedAt))
+        ));
+        return bulk.execute().getMatchedCount();
+    }
+
+    @Override
+    public boolean commitReservation(String orderId, Collection<String> ids) {
+        Query tagged = new Query(Criteria.where("id").in(ids).and(PENDING_ORDERS + ".order").is(orderId));
+        long renewed = mongoTemplate.updateMulti(tagged,
+                new Update().set(PENDING_ORDERS + ".$.at", toDate(LocalDateTime.now())), Sweet.class).getMatchedCount();
+        if (renewed < ids.size()) {
+            return false;
+        }
+        mongoTemplate.updateMulti(tagged, new Update().pull(PENDING_ORDERS, new Document("order", orderId)), Sweet.class);
+        return true;
+    }
+
+    @Override
+    public void rollbackReservation(String orderId, Map<String, Integer> quantities) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Sweet.class);
+        LocalDateTime now = LocalDateTime.now();
+        // Only sweets still tagged with this order were decremented, so only those get their stock back
+        quantities.forEach((id, quantity) -> bulk.updateOne(
+                new Query(Criteria.where("id").is(id).and(PENDING_ORDERS + ".order").is(orderId)),
+                new Update()
+                        .inc("quantity", quantity)
+                        .inc("revision", 1)
+                        .set("updatedAt", now)
+                        .pull(PENDING_ORDERS, new Document("order", orderId))
+        ));
+        bulk.execute();
+    }
+
+    @Override
+    public List<Sweet> releaseExpiredReservations(LocalDateTime cutoff) {
+        Date before = toDate(cutoff);
+        Query expired = new Query(Criteria.where(PENDING_ORDERS + ".at").lt(before));
+        expired.fields().include(PENDING_ORDERS);
+        List<Sweet> released = new ArrayList<>();
+        for (Document sweet : mongoTemplate.find(expired, Document.class, mongoTemplate.getCollectionName(Sweet.class))) {
+            for (Document pending : sweet.getList(PENDING_ORDERS, Document.class, List.of())) {
+                Date at = pending.getDate("at");
+                if (at == null || !at.before(before)) {
+                    continue;
+                }
+                String orderId = pending.getString("order");
+                // Conditional on the tag still being expired, so an order committed, rolled back or renewed
+                // meanwhile is left alone
+                Sweet restored = mongoTemplate.findAndModify(
+                        new Query(Criteria.where("_id").is(sweet.get("_id")).and(PENDING_ORDERS)
+                                .elemMatch(Criteria.where("order").is(orderId).and("at").lt(before))),
+                        touch(new Update()
+                                .inc("quantity", pending.getInteger("quantity", 0))
+                                .pull(PENDING_ORDERS, new Document("order", orderId))),
+                        FindAndModifyOptions.options().returnNew(true), Sweet.class);
+                if (restored != null) {
+                    released.add(restored);
+                }
+            }
+        }
+        return released;
+    }
+
+    @Override
+    public BulkWriteResult upsertBatch(List<Sweet> rows, boolean restock) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Sweet.class);
+        LocalDateTime now = LocalDateTime.now();
+        for (Sweet row : rows) {
+            Query match = row.getId() != null
+                    ? new Query(Criteria.where("id").is(row.getId()))
+                    : new Query(Criteria.where("nameNormalized").is(row.getNameNormalized()));
+
+            Update update = new Update()
+                    .set("updatedAt", now)
+                    .setOnInsert("createdAt", now)
+                    .inc("revision", 1);
+            setIfPresent(update, "name", row.getName());
+            setIfPresent(update, "nameNormalized", row.getNameNormalized());
+            setIfPresent(update, "nameGrams", row.getNameGrams());
+            setIfPresent(update, "category", row.getCategory());
+            setIfPresent(update, "categoryNormalized", row.getCategoryNormalized());
+            setIfPresent(update, "price", row.getPrice());
+            setIfPresent(update, "description", row.getDescription());
+            // A row without an active flag leaves a matched sweet as it was
+            if (row.isActive() != null) {
+                update.set("active", row.isActive());
+            } else {
+                update.setOnInsert("active", true);
+            }
+            if (restock) {
+                update.inc("quantity", row.getQuantity() == null ? 0 : row.getQuantity());
+            } else {
+                setIfPresent(update, "quantity", row.getQuantity());
+            }
+            bulk.upsert(match, update);
+        }
+        return bulk.execute();
+    }
+
+    private Sweet modify(String id, Update update) {
+        return mongoTemplate.findAndModify(new Query(Criteria.where("id").is(id)), update,
+                FindAndModifyOptions.options().returnNew(true), Sweet.class);
+    }
+
+    private static Date toDate(LocalDateTime time) {
+        return Date.from(time.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static Update touch(Update update) {
+        return update.inc("revision", 1).set("updatedAt", LocalDateTime.now());
+    }
+
+    private static void setOrUnset(Update update, String field, Object value, boolean partial) {
+        if (value != null) {
+            update.set(field, value);
+        } else if (!partial) {
+            update.unset(field);
+        }
+    }
+
+    private static void setIfPresent(Update update, String field, Object value) {
+        if (value != null) {
+            update.set(field, value);
+        }
+    }
+}
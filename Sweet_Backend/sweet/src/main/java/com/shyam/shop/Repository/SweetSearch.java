@@ -0,0 +1,222 @@
+package com.shyam.shop.Repository;
+
+import com.shyam.shop.Models.Sweet;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+// Combined search criteria plus the keyset position to continue from (afterId == null for the first page)
+public class SweetSearch {
+
+    public enum SortKey {
+        NAME("nameNormalized", Sweet::getNameNormalized),
+        PRICE("price", Sweet::getPrice),
+        CREATED("createdAt", Sweet::getCreatedAt);
+
+        private final String field;
+        private final Function<Sweet, Object> extractor;
+
+        SortKey(String field, Function<Sweet, Object> extractor) {
+            this.field = field;
+            this.extractor = extractor;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public Object valueOf(Sweet sweet) {
+            return extractor.apply(sweet);
+        }
+
+        public static SortKey from(String value) {
+            if (value == null || value.isEmpty()) {
+                return NAME;
+            }
+            for (SortKey key : values()) {
+                if (key.name().equalsIgnoreCase(value) || key.field.equalsIgnoreCase(value)) {
+                    return key;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported sort key: " + value);
+        }
+    }
+
+    // Exclusive stock levels, so facet counts over them add up to the number of matching sweets
+    public enum StockState {
+        IN,
+        LOW,
+        OUT;
+
+        public static final int LOW_STOCK = 10;
+
+        public static StockState of(Integer quantity) {
+            return of(quantity == null ? 0 : quantity.intValue());
+        }
+
+        public static StockState of(int quantity) {
+            if (quantity <= 0) {
+                return OUT;
+            }
+            return quantity <= LOW_STOCK ? LOW : IN;
+        }
+
+        // Comma-separated, e.g. "in,low"; null or empty means any level
+        public static Set<StockState> parse(String value) {
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            Set<StockState> states = EnumSet.noneOf(StockState.class);
+            for (String part : value.split(",")) {
+                try {
+                    states.add(valueOf(part.trim().toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unsupported stock filter: " + part.trim());
+                }
+            }
+            return states;
+        }
+
+        Criteria criteria() {
+            return switch (this) {
+                case IN -> Criteria.where("quantity").gt(LOW_STOCK);
+                case LOW -> Criteria.where("quantity").gt(0).lte(LOW_STOCK);
+                case OUT -> Criteria.where("quantity").not().gt(0);
+            };
+        }
+    }
+
+    private final String name;
+    private final String category;
+    private final Double minPrice;
+    private final Double maxPrice;
+    private final Set<StockState> stock;
+    private final SortKey sortKey;
+    private final boolean descending;
+    private final Object afterValue;
+    private final String afterId;
+    private final int limit;
+
+    public SweetSearch(String name, String category, Double minPrice, Double maxPrice, Set<StockState> stock,
+                       SortKey sortKey, boolean descending, Object afterValue, String afterId, int limit) {
+        this.name = Sweet.normalize(name);
+        this.category = Sweet.normalize(category);
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.stock = stock == null || stock.isEmpty() || stock.size() == StockState.values().length ? null : stock;
+        this.sortKey = sortKey;
+        this.descending = descending;
+        this.afterValue = afterValue;
+        this.afterId = afterId;
+        this.limit = limit;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    // Null when every stock level matches
+    public Set<StockState> getStock() {
+        return stock;
+    }
+
+    public SortKey getSortKey() {
+        return sortKey;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public Object getAfterValue() {
+        return afterValue;
+    }
+
+    public String getAfterId() {
+        return afterId;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    // Shared by the blocking and reactive repositories so both run the exact same query
+    public Query toQuery() {
+        List<Criteria> filters = new ArrayList<>();
+        filters.add(Criteria.where("active").is(true));
+
+        if (isSet(name)) {
+            // Any name containing the text has all of its grams, so active_nameGrams narrows the scan
+            // and the regex keeps the result an exact substring match
+            if (name.length() >= Sweet.GRAM) {
+                filters.add(Criteria.where("nameGrams").all(Sweet.grams(name)));
+            }
+            filters.add(Criteria.where("nameNormalized").regex(Pattern.quote(name)));
+        }
+        if (isSet(category)) {
+            filters.add(Criteria.where("categoryNormalized").is(category));
+        }
+        if (minPrice != null) {
+            filters.add(Criteria.where("price").gte(minPrice));
+        }
+        if (maxPrice != null) {
+            filters.add(Criteria.where("price").lte(maxPrice));
+        }
+        if (stock != null) {
+            filters.add(stock.size() == 1
+                    ? stock.iterator().next().criteria()
+                    : new Criteria().orOperator(stock.stream().map(StockState::criteria).toList()));
+        }
+        if (afterId != null) {
+            filters.add(seekAfter());
+        }
+
+        Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        return new Query(new Criteria().andOperator(filters))
+                .with(Sort.by(direction, sortKey.getField(), "id"))
+                .limit(limit);
+    }
+
+    // (key, _id) strictly after the last row of the previous page, so every page is an index seek.
+    // Null and missing keys sort before every value, so they come first ascending and last descending.
+    private Criteria seekAfter() {
+        String field = sortKey.getField();
+        // Range operators on _id are not converted to ObjectId by the query mapper, so do it here
+        Object afterId = ObjectId.isValid(this.afterId) ? new ObjectId(this.afterId) : this.afterId;
+        Criteria sameKey = new Criteria().andOperator(Criteria.where(field).is(afterValue),
+                descending ? Criteria.where("id").lt(afterId) : Criteria.where("id").gt(afterId));
+        if (afterValue == null) {
+            return descending
+                    ? sameKey
+                    : new Criteria().orOperator(Criteria.where(field).ne(null), sameKey);
+        }
+        return descending
+                ? new Criteria().orOperator(Criteria.where(field).lt(afterValue), sameKey, Criteria.where(field).is(null))
+                : new Criteria().orOperator(Criteria.where(field).gt(afterValue), sameKey);
+    }
+
+    private static boolean isSet(String value) {
+        return value != null && !value.isEmpty();
+    }
+}
@@ -0,0 +1,57 @@
+package com.shyam.shop.Repository;
+
+import com.shyam.shop.Models.Role;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+// Criteria for one page of the admin user listing. Pages are keyed on _id, which for ObjectIds follows
+// creation order, so a page costs an index seek plus limit entries however deep the client has paged.
+public class UserFilter {
+
+    private final Role role;
+    private final Boolean enabled;
+    // Any of these matches; null for no email filter
+    private final List<String> emails;
+    private final String afterId;
+    private final boolean descending;
+    private final int limit;
+
+    public UserFilter(Role role, Boolean enabled, List<String> emails, String afterId, boolean descending, int limit) {
+        this.role = role;
+        this.enabled = enabled;
+        this.emails = emails;
+        this.afterId = afterId;
+        this.descending = descending;
+        this.limit = limit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public Query toQuery() {
+        Query query = new Query();
+        if (role != null) {
+            query.addCriteria(Criteria.where("role").is(role));
+        }
+        if (enabled != null) {
+            // Users saved before the flag existed have no field and count as enabled
+            query.addCriteria(enabled ? Criteria.where("enabled").ne(false) : Criteria.where("enabled").is(false));
+        }
+        if (emails != null) {
+            query.addCriteria(emails.size() == 1 ? Criteria.where("email").is(emails.get(0)) : Criteria.where("email").in(emails));
+        }
+        if (afterId != null) {
+            // The mapper only converts ids to ObjectId for equality and $in, not for range operators
+            Object after = ObjectId.isValid(afterId) ? new ObjectId(afterId) : afterId;
+            query.addCriteria(descending ? Criteria.where("id").lt(after) : Criteria.where("id").gt(after));
+        }
+        return query
+                .with(Sort.by(descending ? Sort.Direction.DESC : Sort.Direction.ASC, "id"))
+                .limit(limit);
+    }
+}
@@ -1,9 +1,13 @@
 package com.shyam.shop.Security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -17,9 +21,21 @@ import java.util.List;
 @Component
 public class JwtFilter extends OncePerRequestFilter {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtFilter.class);
+    private static final String STREAM_PATH = "/api/sweets/stream";
+
     @Autowired
     JwtUtil jwtUtil;
 
+    private final Timer verifyTimer;
+
+    public JwtFilter(MeterRegistry meterRegistry) {
+        this.verifyTimer = Timer.builder("shop.jwt.verify")
+                .description("JWT verification time per request")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
@@ -29,32 +45,36 @@ public class JwtFilter extends OncePerRequestFilter {
         String path = request.getRequestURI();  // Changed from getServletPath() to getRequestURI()
         String method = request.getMethod();
 
-        // Debug logging
-        System.out.println("DEBUG - Request URI: " + path);
-        System.out.println("DEBUG - Request Method: " + method);
+        log.debug("Request {} {}", method, path);
 
         // Skip JWT validation for public endpoints (login and create)
         if (path.equals("/api/auth/login") ||
                 path.equals("/api/auth/create") ||
                 path.startsWith("/api/auth/login") ||
                 path.startsWith("/api/auth/create")) {
-            System.out.println("DEBUG - Skipping JWT validation for public endpoint");
+            log.debug("Skipping JWT validation for public endpoint");
             filterChain.doFilter(request, response);
             return;
         }
 
         String authHeader = request.getHeader("Authorization");
-
+        String token = null;
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            String token = authHeader.substring(7);
+            token = authHeader.substring(7);
+        } else if (path.equals(STREAM_PATH)) {
+            // Browser EventSource cannot set headers, so the stock stream also takes the token as a parameter
+            token = request.getParameter("access_token");
+        }
+
+        if (token != null) {
             try {
-                if (jwtUtil.validatejwttoken(token)) {
-                    String email = jwtUtil.extractUsername(token);
-                    String role = jwtUtil.extractRole(token);
+                String candidate = token;
+                VerifiedToken verified = verifyTimer.record(() -> jwtUtil.verify(candidate));
+                if (verified != null) {
+                    String email = verified.getEmail();
+                    String role = verified.getRole();
 
-                    System.out.println("DEBUG - Email: " + email);
-                    System.out.println("DEBUG - Extracted Role: " + role);
-                    System.out.println("DEBUG - Authority: ROLE_" + role);
+                    log.debug("Authenticated {} with authority ROLE_{}", email, role);
 
                     // Create authority with ROLE_ prefix (Spring Security requirement)
                     SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + role);
@@ -66,11 +86,10 @@ public class JwtFilter extends OncePerRequestFilter {
                     );
 
                     SecurityContextHolder.getContext().setAuthentication(auth);
-                    System.out.println("DEBUG - Authentication set successfully");
                 }
             } catch (Exception e) {
-                System.err.println("ERROR - Token processing failed: " + e.getMessage());
-                e.printStackTrace();
+                log.warn("Token processing failed: {}", e.getMessage());
+                log.debug("Token processing failure", e);
             }
         }
 
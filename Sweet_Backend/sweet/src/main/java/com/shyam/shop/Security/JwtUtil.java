@@ -1,7 +1,9 @@
 package com.shyam.shop.Security;
 
+import com.shyam.shop.Services.BoundedCache;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.nio.charset.StandardCharsets;
@@ -18,6 +20,15 @@ public class JwtUtil {
 
     private final Key secretkey = Keys.hmacShaKeyFor(SECRET_KEY.getBytes(StandardCharsets.UTF_8));
 
+    // JwtParser is immutable and thread-safe, so one instance serves every request
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(secretkey).build();
+
+    // Tokens that already passed signature verification, dropped once they expire; null when disabled
+    private final BoundedCache<String, VerifiedToken> verified;
+
+    public JwtUtil(@Value("${shop.security.jwt.cache-size:10000}") int cacheSize) {
+        this.verified = cacheSize > 0 ? new BoundedCache<>(cacheSize) : null;
+    }
 
     public String generateToken(String email, String role) {
         Map<String, Object> claims = new HashMap<>();
@@ -32,30 +43,37 @@ public class JwtUtil {
                 .compact();
     }
 
-    public String extractUsername(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(secretkey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
-    }
+    // Single parse returning every claim the callers need, or null if the token is invalid or expired
+    public VerifiedToken verify(String token) {
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = verified == null ? null : verified.get(token);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                return cached;
+            }
+            verified.remove(token, cached);
+        }
 
-    public String extractRole(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(secretkey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.get("role", String.class);
+        VerifiedToken result;
+        try {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            Date expiration = claims.getExpiration();
+            result = new VerifiedToken(
+                    claims.getSubject(),
+                    claims.get("role", String.class),
+                    expiration == null ? Long.MAX_VALUE : expiration.getTime()
+            );
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+
+        if (verified != null) {
+            verified.put(token, result);
+        }
+        return result;
     }
 
     public boolean validatejwttoken(String token) {
-        try {
-            extractUsername(token);
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+        return verify(token) != null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,168 @@
+package com.shyam.shop.Security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Runs right after JwtFilter so expensive routes are refused before any work starts. Callers are keyed by
+// JWT subject when authenticated, else by client IP.
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+    private static final byte[] REJECTED_BODY = "{\"error\":\"Too many requests\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final List<Rule> rules = new ArrayList<>();
+    private final AntPathMatcher matcher = new AntPathMatcher();
+    private final ScheduledExecutorService sweeper;
+
+    public RateLimitFilter(MeterRegistry meterRegistry,
+                           @Value("${shop.ratelimit.enabled:true}") boolean enabled,
+                           @Value("${shop.ratelimit.rules:}") List<String> specs,
+                           @Value("${shop.ratelimit.max-keys:100000}") int maxKeys,
+                           @Value("${shop.ratelimit.sweep-seconds:30}") long sweepSeconds) {
+        if (enabled) {
+            for (String spec : specs) {
+                if (!spec.isBlank()) {
+                    Rule rule = Rule.parse(spec.trim(), maxKeys);
+                    rule.rejected = Counter.builder("shop.ratelimit.rejected")
+                            .tag("route", rule.name)
+                            .register(meterRegistry);
+                    Gauge.builder("shop.ratelimit.keys", rule.buckets, TokenBuckets::size)
+                            .tag("route", rule.name)
+                            .register(meterRegistry);
+                    rules.add(rule);
+                }
+            }
+        }
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ratelimit-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!rules.isEmpty()) {
+            sweeper.scheduleWithFixedDelay(this::expireIdle, sweepSeconds, sweepSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return rules.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+
+        Rule rule = match(request);
+        if (rule != null) {
+            long waitNanos = rule.buckets.tryAcquire(callerKey(request), System.nanoTime());
+            if (waitNanos > 0) {
+                rule.rejected.increment();
+                reject(response, waitNanos);
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private Rule match(HttpServletRequest request) {
+        String method = request.getMethod();
+        String path = request.getRequestURI();
+        for (Rule rule : rules) {
+            if (rule.method.equals(method) && matcher.match(rule.pattern, path)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    // Set by JwtFilter just before this filter runs. Tomcat's remote IP valve has already replaced the remote
+    // address with the X-Forwarded-For client when the peer is one of server.tomcat.remoteip.internal-proxies.
+    private static String callerKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "u:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(REJECTED_BODY.length);
+        response.getOutputStream().write(REJECTED_BODY);
+    }
+
+    private void expireIdle() {
+        long now = System.nanoTime();
+        for (Rule rule : rules) {
+            int removed = rule.buckets.expireIdle(now);
+            if (removed > 0) {
+                log.debug("Expired {} idle rate-limit keys for {}", removed, rule.name);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        sweeper.shutdownNow();
+    }
+
+    // "METHOD /ant/path/** capacity perSecond", e.g. "POST /api/auth/login 10 0.5" allows a burst of 10,
+    // then one request every two seconds per caller
+    private static final class Rule {
+
+        private final String method;
+        private final String pattern;
+        private final String name;
+        private final TokenBuckets buckets;
+        private Counter rejected;
+
+        private Rule(String method, String pattern, TokenBuckets buckets) {
+            this.method = method;
+            this.pattern = pattern;
+            this.name = method + " " + pattern;
+            this.buckets = buckets;
+        }
+
+        static Rule parse(String spec, int maxKeys) {
+            String[] parts = spec.split("\\s+");
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Invalid rate-limit rule '" + spec + "', expected: METHOD /path capacity perSecond");
+            }
+            return new Rule(parts[0].toUpperCase(), parts[1],
+                    new TokenBuckets(Integer.parseInt(parts[2]), Double.parseDouble(parts[3]), maxKeys));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.shyam.shop.Security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token buckets for one rate-limit rule, one per caller key, each a single AtomicLong updated by GCRA.
+final class TokenBuckets {
+
+    private static final int EVICTION_SAMPLE = 8;
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final int maxKeys;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    TokenBuckets(int capacity, double perSecond, int maxKeys) {
+        if (capacity < 1 || perSecond <= 0) {
+            throw new IllegalArgumentException("Rate limit needs capacity >= 1 and a positive rate");
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / perSecond));
+        this.toleranceNanos = intervalNanos * (capacity - 1);
+        this.maxKeys = maxKeys;
+    }
+
+    // 0 when the request may proceed, otherwise how long until it would
+    long tryAcquire(String key, long now) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys) {
+                evictNearestFull(now);
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE));
+        }
+        while (true) {
+            long tat = bucket.get();
+            long start = tat == Long.MIN_VALUE || tat - now < 0 ? now : tat;
+            long wait = start - now - toleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(tat, start + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    // A bucket whose arrival time has passed is full again, so dropping it loses nothing
+    int expireIdle(long now) {
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> isIdle(bucket.get(), now));
+        return before - buckets.size();
+    }
+
+    // Of a few sampled buckets, drops the one closest to full (idle ones first), since forgetting it loses the least
+    private void evictNearestFull(long now) {
+        String victim = null;
+        long victimDebt = Long.MAX_VALUE;
+        int sampled = 0;
+        for (Map.Entry<String, AtomicLong> entry : buckets.entrySet()) {
+            long tat = entry.getValue().get();
+            long debt = isIdle(tat, now) ? Long.MIN_VALUE : tat - now;
+            if (victim == null || debt < victimDebt) {
+                victim = entry.getKey();
+                victimDebt = debt;
+            }
+            if (debt == Long.MIN_VALUE || ++sampled == EVICTION_SAMPLE) {
+                break;
+            }
+        }
+        if (victim != null) {
+            buckets.remove(victim);
+        }
+    }
+
+    private static boolean isIdle(long tat, long now) {
+        return tat == Long.MIN_VALUE || tat - now <= 0;
+    }
+
+    int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,31 @@
+package com.shyam.shop.Security;
+
+// Claims of a token whose signature and expiry have already been checked
+public final class VerifiedToken {
+
+    private final String email;
+    private final String role;
+    private final long expiresAtMillis;
+
+    public VerifiedToken(String email, String role, long expiresAtMillis) {
+        this.email = email;
+        this.role = role;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+}
@@ -1,28 +1,56 @@
 package com.shyam.shop.Services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.shyam.shop.Models.Role;
 import com.shyam.shop.Models.User;
+import com.shyam.shop.Models.UserPage;
+import com.shyam.shop.Models.UserSummary;
 import com.shyam.shop.Repository.AuthRepository;
+import com.shyam.shop.Repository.UserFilter;
 import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 @Service
 public class AuthService {
 
-    @Autowired
-    BCryptPasswordEncoder passwordEncoder;
+    private static final Logger log = LoggerFactory.getLogger(AuthService.class);
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final String DUPLICATE_EMAIL = "User with this email already exists";
+
     @Autowired
     AuthRepository repository;
     @Autowired
-    private PasswordEncoder encoder;
+    private PasswordHashingService passwordHashing;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private ChangeEventBus events;
+    @Autowired
+    private UserCache userCache;
+    // Mongo writes that follow a hash run here, so a slow write never holds a BCrypt thread
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor taskExecutor;
 
 
 
@@ -31,27 +59,73 @@ public class AuthService {
 
     @PostConstruct
     public void testDB() {
-        System.out.println("=================================");
-        System.out.println("Active Database: " + databaseName);
+        log.info("Active Database: {}", databaseName);
+    }
+    // One page of users without password hashes or timestamps. The cursor carries the sort direction, so
+    // a client only passes it back; newestFirst applies to the first page.
+    public UserPage listUsers(Role role, Boolean enabled, String email, boolean newestFirst, String cursor, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        String afterId = null;
+        boolean descending = newestFirst;
+        if (cursor != null && !cursor.isEmpty()) {
+            String raw;
+            try {
+                raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            if (raw.length() < 3 || raw.charAt(1) != '|') {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            descending = raw.charAt(0) == 'd';
+            afterId = raw.substring(2);
+        }
 
-        System.out.println("=================================");
+        // Stored emails are normalized, except legacy accounts that normalizeLegacyEmails left in their exact case
+        List<String> emails = null;
+        String emailKey = UserCache.normalize(email);
+        if (emailKey != null) {
+            emails = emailKey.equals(email) ? List.of(emailKey) : List.of(emailKey, email);
+        }
+
+        // One extra row tells whether another page follows without a count query
+        List<UserSummary> users = repository.findSummaries(
+                new UserFilter(role, enabled, emails, afterId, descending, pageSize + 1));
+        String nextCursor = null;
+        if (users.size() > pageSize) {
+            users = users.subList(0, pageSize);
+            String raw = (descending ? "d|" : "a|") + users.get(pageSize - 1).getId();
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+        log.debug("Listed {} users", users.size());
+        return new UserPage(users, nextCursor);
+    }
+
+    public UserSummary getSummary(String id) {
+        return repository.findSummaryById(id).orElse(null);
     }
-    public List<User> getAllTodos(){
-        List<User> users = repository.findAll();
-        System.out.println("Retrieved " + users.size() + " User");
-        return users;
+
+    public long exportUsers(OutputStream out, boolean ndjson) throws IOException {
+        try (Stream<UserSummary> users = repository.streamSummaries()) {
+            return StreamingExport.write(users, out, objectMapper, ndjson);
+        }
+    }
+
+    public Optional<User> findByEmail(String email) {
+        return userCache.findByEmail(email);
     }
 
     public User getByid(String id){
-        System.out.println("Fetching user with ID: [" + id + "]");
+        log.debug("Fetching user with ID: [{}]", id);
         return repository.findById(id).orElse(null);
     }
 
-    public User createTodo(User user) {
-        // Check if user already exists
-        Optional<User> existingUser = repository.findByEmail(user.getEmail());
-        if (existingUser.isPresent()) {
-            throw new RuntimeException("User with this email already exists");
+    // The duplicate check runs on the caller's thread, hashing on the BCrypt pool and the insert on the task executor
+    public CompletableFuture<User> createTodo(User user) {
+        user.setEmail(UserCache.normalize(user.getEmail()));
+        // Check if user already exists; most new emails are ruled out by the Bloom filter without a read
+        if (userCache.mightExist(user.getEmail()) && userCache.findByEmail(user.getEmail()).isPresent()) {
+            throw new RuntimeException(DUPLICATE_EMAIL);
         }
 
         // Set default values
@@ -64,15 +138,50 @@ public class AuthService {
         }
 
         // Encode password
-        user.setPassword(encoder.encode(user.getPassword()));
-
-        // Set timestamps
-        user.setCreatedAt(LocalDateTime.now());
-        user.setUpdatedAt(LocalDateTime.now());
+        return passwordHashing.encode(user.getPassword()).thenApplyAsync(hash -> {
+            user.setPassword(hash);
+
+            // Set timestamps
+            user.setCreatedAt(LocalDateTime.now());
+            user.setUpdatedAt(LocalDateTime.now());
+
+            User saved;
+            try {
+                saved = repository.save(user);
+            } catch (DuplicateKeyException e) {
+                // The unique email index is the final word when two registrations race or the filter said no
+                throw new RuntimeException(DUPLICATE_EMAIL);
+            }
+            userCache.added(saved);
+            events.publish(ChangeEvent.user(saved));
+            return saved;
+        }, taskExecutor);
+    }
 
-        return repository.save(user);
+    // Upgrades the stored hash in the background when it was made with a lower cost than the configured one
+    public CompletableFuture<Boolean> checkPassword(User user, String password) {
+        return passwordHashing.matches(password, user.getPassword()).thenApply(matches -> {
+            if (matches && passwordHashing.needsRehash(user.getPassword())) {
+                rehash(user, password);
+            }
+            return matches;
+        });
     }
 
+    // Best effort: if the pool is busy the upgrade simply happens on a later login
+    private void rehash(User user, String password) {
+        try {
+            passwordHashing.encode(password).thenAcceptAsync(hash -> {
+                User updated = repository.updatePassword(user.getId(), hash);
+                if (updated != null) {
+                    events.publish(ChangeEvent.user(updated));
+                }
+                log.debug("Rehashed password for user {} with the current BCrypt cost", user.getId());
+            }, taskExecutor);
+        } catch (PasswordHashingBusyException e) {
+            log.debug("Skipped rehash for user {}: hashing pool busy", user.getId());
+        }
+    }
 
 
 
@@ -80,15 +189,65 @@ public class AuthService {
     public String DeleteTodo(String id){
         try {
             repository.deleteById(id);
+            events.publish(ChangeEvent.removed(ChangeEvent.Kind.USER, id));
             return id + " Deleted";
         }catch (Exception e){
             return "Error: " + e.getMessage();
         }
     }
 
-    public User UpdateTodo(User user){
-        System.out.println("Updating user: " + user);
-        return repository.save(user);
+    // Writes only the fields set on changes, in one round trip; completes with null when no user has this id.
+    // A plain-text password is hashed on the BCrypt pool first; a blank one leaves the stored hash alone.
+    public CompletableFuture<User> UpdateTodo(String id, User changes){
+        log.debug("Updating user: {}", id);
+        changes.setEmail(UserCache.normalize(changes.getEmail()));
+        String password = changes.getPassword();
+        if (password == null || password.isEmpty()) {
+            changes.setPassword(null);
+        } else if (!password.startsWith("$2a$")) {
+            return passwordHashing.encode(password).thenApplyAsync(hash -> {
+                changes.setPassword(hash);
+                return writeUpdate(id, changes);
+            }, taskExecutor);
+        }
+        return CompletableFuture.completedFuture(writeUpdate(id, changes));
+    }
 
+    private User writeUpdate(String id, User changes) {
+        User updated;
+        try {
+            updated = repository.updateFields(id, changes);
+        } catch (DuplicateKeyException e) {
+            throw new RuntimeException(DUPLICATE_EMAIL);
+        }
+        if (updated != null) {
+            events.publish(ChangeEvent.user(updated));
+        }
+        return updated;
+    }
+
+    // Accounts registered before emails were normalized are lower-cased, unless another account already holds
+    // that email; such pairs are left for an admin to resolve and keep logging in by their exact stored email
+    @EventListener(ApplicationReadyEvent.class)
+    public void normalizeLegacyEmails() {
+        try {
+            for (User legacy : repository.findUnnormalizedEmails()) {
+                User changes = new User();
+                changes.setEmail(UserCache.normalize(legacy.getEmail()));
+                changes.setEnabled(null);
+                try {
+                    User updated = repository.updateFields(legacy.getId(), changes);
+                    if (updated != null) {
+                        events.publish(ChangeEvent.user(updated));
+                    }
+                } catch (DuplicateKeyException e) {
+                    userCache.caseConflict(legacy.getEmail());
+                    log.warn("User {} has email {}, which differs only in case from another account; left as is",
+                            legacy.getId(), legacy.getEmail());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not normalize legacy emails: {}", e.getMessage());
+        }
     }
 }
@@ -0,0 +1,395 @@
+package com.shyam.shop.Services;
+
+import com.shyam.shop.Models.FacetCount;
+import com.shyam.shop.Models.Sweet;
+import com.shyam.shop.Models.SweetFacets;
+import com.shyam.shop.Models.SweetPage;
+import com.shyam.shop.Repository.SweetSearch;
+import com.shyam.shop.Repository.SweetSearch.SortKey;
+import com.shyam.shop.Repository.SweetSearch.StockState;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Column-per-field copy of the active catalog with bitsets per category and stock level; a search is one pass
+// over the candidate slots that filters, counts facets and keeps the best `limit` rows.
+final class CatalogColumns {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int ANY = -1;
+    private static final int NONE = -2;
+    private static final StockState[] STOCK_STATES = StockState.values();
+
+    // Ascending upper bounds: bucket b holds prices in [bounds[b-1], bounds[b]), the last one everything above
+    private final double[] priceBounds;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    // Removed ids, compared like held rows
+    private final Tombstones removed;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int highWater;
+
+    private String[] ids = new String[INITIAL_CAPACITY];
+    private Sweet[] rows = new Sweet[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    // NaN when the sweet has no price
+    private double[] prices = new double[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private int[] categories = new int[INITIAL_CAPACITY];
+    private byte[] priceBuckets = new byte[INITIAL_CAPACITY];
+
+    private final BitSet live = new BitSet();
+    private final BitSet[] byStock = new BitSet[STOCK_STATES.length];
+    private final Map<String, Integer> categoryCodes = new HashMap<>();
+    private final List<String> categoryLabels = new ArrayList<>();
+    private final List<BitSet> byCategory = new ArrayList<>();
+
+    CatalogColumns(double[] priceBounds, long tombstoneTtlMillis) {
+        this.priceBounds = priceBounds.clone();
+        this.removed = new Tombstones(tombstoneTtlMillis);
+        Arrays.sort(this.priceBounds);
+        for (int i = 0; i < byStock.length; i++) {
+            byStock[i] = new BitSet();
+        }
+    }
+
+    void load(Collection<Sweet> sweets) {
+        lock.writeLock().lock();
+        try {
+            slots.clear();
+            removed.clear();
+            freeCount = 0;
+            highWater = 0;
+            Arrays.fill(rows, null);
+            live.clear();
+            for (BitSet bits : byStock) {
+                bits.clear();
+            }
+            byCategory.forEach(BitSet::clear);
+            for (Sweet sweet : sweets) {
+                upsertLocked(sweet);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Inactive sweets are removed; a copy that is not newer than the one held is ignored
+    void upsert(Sweet sweet) {
+        lock.writeLock().lock();
+        try {
+            upsertLocked(sweet);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Same rows, order and cursors as SweetSearch.toQuery() run against Mongo
+    SweetPage search(SweetSearch search, boolean withFacets) {
+        lock.readLock().lock();
+        try {
+            return searchLocked(search, withFacets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private SweetPage searchLocked(SweetSearch search, boolean withFacets) {
+        String name = search.getName();
+        boolean byName = name != null && !name.isEmpty();
+        int category = ANY;
+        if (search.getCategory() != null && !search.getCategory().isEmpty()) {
+            Integer code = categoryCodes.get(search.getCategory());
+            category = code == null ? NONE : code;
+        }
+        boolean byPrice = search.getMinPrice() != null || search.getMaxPrice() != null;
+        double min = search.getMinPrice() == null ? Double.NEGATIVE_INFINITY : search.getMinPrice();
+        double max = search.getMaxPrice() == null ? Double.POSITIVE_INFINITY : search.getMaxPrice();
+        int stockMask = (1 << STOCK_STATES.length) - 1;
+        if (search.getStock() != null) {
+            stockMask = 0;
+            for (StockState state : search.getStock()) {
+                stockMask |= 1 << state.ordinal();
+            }
+        }
+
+        // Without facets only the slots of the most selective bitset need a look
+        BitSet candidates = live;
+        if (!withFacets) {
+            if (category == NONE) {
+                return new SweetPage(List.of(), null);
+            }
+            if (category != ANY) {
+                candidates = byCategory.get(category);
+            } else if (Integer.bitCount(stockMask) == 1) {
+                candidates = byStock[Integer.numberOfTrailingZeros(stockMask)];
+            }
+        }
+
+        int[] categoryCounts = withFacets ? new int[categoryLabels.size()] : null;
+        int[] priceCounts = withFacets ? new int[priceBounds.length + 1] : null;
+        int[] stockCounts = withFacets ? new int[STOCK_STATES.length] : null;
+
+        SortKey key = search.getSortKey();
+        boolean descending = search.isDescending();
+        boolean seek = search.getAfterId() != null;
+        int limit = search.getLimit();
+        int[] top = new int[limit];
+        int size = 0;
+        for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+            if (byName && (names[slot] == null || !names[slot].contains(name))) {
+                continue;
+            }
+            boolean categoryMatches = category == ANY || categories[slot] == category;
+            double price = prices[slot];
+            boolean priceMatches = !byPrice || (price >= min && price <= max);
+            int stock = stockLevel(quantities[slot]);
+            boolean stockMatches = (stockMask & (1 << stock)) != 0;
+
+            if (withFacets) {
+                if (priceMatches && stockMatches && categories[slot] >= 0) {
+                    categoryCounts[categories[slot]]++;
+                }
+                if (categoryMatches && stockMatches && priceBuckets[slot] >= 0) {
+                    priceCounts[priceBuckets[slot]]++;
+                }
+                if (categoryMatches && priceMatches) {
+                    stockCounts[stock]++;
+                }
+            }
+            if (!categoryMatches || !priceMatches || !stockMatches || (seek && !isAfterCursor(slot, search))) {
+                continue;
+            }
+            if (size == limit && compare(slot, top[size - 1], key, descending) >= 0) {
+                continue;
+            }
+            int at = size < limit ? size++ : limit - 1;
+            while (at > 0 && compare(slot, top[at - 1], key, descending) < 0) {
+                top[at] = top[at - 1];
+                at--;
+            }
+            top[at] = slot;
+        }
+
+        List<Sweet> page = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            page.add(rows[top[i]]);
+        }
+        SweetPage result = SweetService.toPage(page, search);
+        if (withFacets) {
+            result.setFacets(new SweetFacets(categoryFacets(categoryCounts), priceFacets(priceCounts), stockFacets(stockCounts)));
+        }
+        return result;
+    }
+
+    private void upsertLocked(Sweet sweet) {
+        Integer existing = slots.get(sweet.getId());
+        if (CatalogSnapshot.isStale(sweet, existing != null ? rows[existing] : removed.get(sweet.getId()))) {
+            return;
+        }
+        if (!Boolean.TRUE.equals(sweet.isActive())) {
+            removed.put(sweet);
+            if (existing != null) {
+                slots.remove(sweet.getId());
+                release(existing);
+            }
+            return;
+        }
+
+        removed.remove(sweet.getId());
+        int slot;
+        if (existing != null) {
+            slot = existing;
+            unindex(slot);
+        } else {
+            slot = allocate();
+            slots.put(sweet.getId(), slot);
+            live.set(slot);
+        }
+        ids[slot] = sweet.getId();
+        rows[slot] = sweet;
+        names[slot] = Sweet.normalize(sweet.getName());
+        prices[slot] = sweet.getPrice() == null ? Double.NaN : sweet.getPrice();
+        quantities[slot] = sweet.getQuantity() == null ? 0 : sweet.getQuantity();
+        categories[slot] = categoryCode(sweet.getCategory());
+        priceBuckets[slot] = (byte) priceBucket(prices[slot]);
+
+        byStock[stockLevel(quantities[slot])].set(slot);
+        if (categories[slot] >= 0) {
+            byCategory.get(categories[slot]).set(slot);
+        }
+    }
+
+    private void unindex(int slot) {
+        byStock[stockLevel(quantities[slot])].clear(slot);
+        if (categories[slot] >= 0) {
+            byCategory.get(categories[slot]).clear(slot);
+        }
+    }
+
+    private void release(int slot) {
+        unindex(slot);
+        live.clear(slot);
+        rows[slot] = null;
+        ids[slot] = null;
+        names[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (highWater == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            rows = Arrays.copyOf(rows, capacity);
+            names = Arrays.copyOf(names, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+            priceBuckets = Arrays.copyOf(priceBuckets, capacity);
+        }
+        return highWater++;
+    }
+
+    // Codes are never reused: a category that empties keeps its code and simply stops showing up in facets
+    private int categoryCode(String category) {
+        String key = Sweet.normalize(category);
+        if (key == null || key.isEmpty()) {
+            return ANY;
+        }
+        Integer code = categoryCodes.get(key);
+        if (code == null) {
+            code = categoryLabels.size();
+            categoryCodes.put(key, code);
+            categoryLabels.add(category.trim());
+            byCategory.add(new BitSet());
+        }
+        return code;
+    }
+
+    private int priceBucket(double price) {
+        if (Double.isNaN(price)) {
+            return -1;
+        }
+        int bucket = 0;
+        while (bucket < priceBounds.length && price >= priceBounds[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private boolean isAfterCursor(int slot, SweetSearch search) {
+        int c = compareValue(slot, search.getSortKey(), search.getAfterValue());
+        if (c == 0) {
+            c = ids[slot].compareTo(search.getAfterId());
+        }
+        return search.isDescending() ? c < 0 : c > 0;
+    }
+
+    // Negative when slot a comes first in the requested order
+    private int compare(int a, int b, SortKey key, boolean descending) {
+        int c = switch (key) {
+            case NAME -> compareNullsFirst(names[a], names[b]);
+            case PRICE -> comparePrices(prices[a], prices[b]);
+            case CREATED -> compareNullsFirst(rows[a].getCreatedAt(), rows[b].getCreatedAt());
+        };
+        if (c == 0) {
+            c = ids[a].compareTo(ids[b]);
+        }
+        return descending ? -c : c;
+    }
+
+    private int compareValue(int slot, SortKey key, Object value) {
+        return switch (key) {
+            case NAME -> compareNullsFirst(names[slot], (String) value);
+            case PRICE -> comparePrices(prices[slot], value == null ? Double.NaN : ((Number) value).doubleValue());
+            case CREATED -> compareNullsFirst(rows[slot].getCreatedAt(), (LocalDateTime) value);
+        };
+    }
+
+    private static int stockLevel(int quantity) {
+        return StockState.of(quantity).ordinal();
+    }
+
+    // Mongo sorts a missing value before any number or string; NaN stands for a missing price here
+    private static int comparePrices(double a, double b) {
+        boolean aMissing = Double.isNaN(a);
+        boolean bMissing = Double.isNaN(b);
+        if (aMissing || bMissing) {
+            return aMissing == bMissing ? 0 : aMissing ? -1 : 1;
+        }
+        return Double.compare(a, b);
+    }
+
+    private static <T extends Comparable<T>> int compareNullsFirst(T a, T b) {
+        if (a == null || b == null) {
+            return a == b ? 0 : a == null ? -1 : 1;
+        }
+        return a.compareTo(b);
+    }
+
+    private List<FacetCount> categoryFacets(int[] counts) {
+        List<FacetCount> facets = new ArrayList<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                facets.add(new FacetCount(categoryLabels.get(code), counts[code]));
+            }
+        }
+        facets.sort((a, b) -> a.getCount().equals(b.getCount())
+                ? a.getValue().compareToIgnoreCase(b.getValue())
+                : Long.compare(b.getCount(), a.getCount()));
+        return facets;
+    }
+
+    private List<FacetCount> priceFacets(int[] counts) {
+        List<FacetCount> facets = new ArrayList<>();
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            if (counts[bucket] == 0) {
+                continue;
+            }
+            double from = bucket == 0 ? 0 : priceBounds[bucket - 1];
+            Double to = bucket < priceBounds.length ? priceBounds[bucket] : null;
+            String label = to == null ? format(from) + "+" : format(from) + "-" + format(to);
+            facets.add(new FacetCount(label, (long) counts[bucket], bucket == 0 ? null : from, to));
+        }
+        return facets;
+    }
+
+    private static List<FacetCount> stockFacets(int[] counts) {
+        List<FacetCount> facets = new ArrayList<>();
+        for (StockState state : STOCK_STATES) {
+            if (counts[state.ordinal()] > 0) {
+                facets.add(new FacetCount(state.name().toLowerCase(Locale.ROOT), counts[state.ordinal()]));
+            }
+        }
+        return facets;
+    }
+
+    private static String format(double bound) {
+        return bound == Math.rint(bound) ? Long.toString((long) bound) : Double.toString(bound);
+    }
+}
@@ -0,0 +1,331 @@
+package com.shyam.shop.Services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.shyam.shop.Models.ImportProgress;
+import com.shyam.shop.Models.Sweet;
+import com.shyam.shop.Repository.SweetRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Streams a CSV or NDJSON catalog upload row by row and upserts it in fixed-size bulk batches,
+// so memory stays bounded by one batch no matter how large the file is.
+@Service
+public class CatalogImportService {
+
+    private static final int MAX_BATCH_SIZE = 10_000;
+    private static final int MAX_ERRORS_PER_BATCH = 20;
+
+    @Autowired
+    private SweetRepository sweetRepository;
+
+    @Autowired
+    private ChangeEventBus events;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${shop.import.batch-size:1000}")
+    private int defaultBatchSize;
+
+    public ImportProgress importCatalog(InputStream body, String format, boolean restock, Integer batchSize,
+                                        Consumer<ImportProgress> onBatch) throws IOException {
+        int size = batchSize == null ? defaultBatchSize : Math.max(1, Math.min(batchSize, MAX_BATCH_SIZE));
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        RowReader rows = "csv".equalsIgnoreCase(format)
+                ? new CsvRowReader(reader)
+                : new NdjsonRowReader(reader, objectMapper.readerFor(Sweet.class));
+
+        long started = System.nanoTime();
+        Map<String, Sweet> batch = new LinkedHashMap<>();
+        List<String> errors = new ArrayList<>();
+        ImportProgress totals = new ImportProgress();
+
+        try {
+            while (true) {
+                Sweet row;
+                try {
+                    row = rows.next();
+                } catch (IllegalArgumentException e) {
+                    totals.setRowsRead(totals.getRowsRead() + 1);
+                    totals.setFailed(totals.getFailed() + 1);
+                    addError(errors, "line " + rows.lineNumber() + ": " + e.getMessage());
+                    continue;
+                }
+                if (row == null) {
+                    break;
+                }
+                totals.setRowsRead(totals.getRowsRead() + 1);
+                if (row.getId() == null && row.getNameNormalized() == null) {
+                    totals.setFailed(totals.getFailed() + 1);
+                    addError(errors, "line " + rows.lineNumber() + ": row needs an id or a name");
+                    continue;
+                }
+                if (row.getQuantity() != null && row.getQuantity() < 0) {
+                    totals.setFailed(totals.getFailed() + 1);
+                    addError(errors, "line " + rows.lineNumber() + ": quantity must not be negative");
+                    continue;
+                }
+                merge(batch, row, restock);
+                if (batch.size() >= size) {
+                    flush(batch, restock, errors, totals, started, onBatch);
+                }
+            }
+            if (!batch.isEmpty() || !errors.isEmpty()) {
+                flush(batch, restock, errors, totals, started, onBatch);
+            }
+        } finally {
+            // Thousands of changed documents are cheaper to reload once than to patch in one by one
+            events.publish(ChangeEvent.reset(ChangeEvent.Kind.SWEET));
+        }
+
+        totals.setBatchRows(0);
+        totals.setErrors(List.of());
+        totals.setDone(true);
+        stamp(totals, started);
+        return totals;
+    }
+
+    // Rows for the same sweet inside one unordered bulk write would race each other, so they are folded together:
+    // later non-null fields win, and in restock mode the quantities add up
+    private void merge(Map<String, Sweet> batch, Sweet row, boolean restock) {
+        String key = row.getId() != null ? "id:" + row.getId() : "name:" + row.getNameNormalized();
+        Sweet merged = batch.get(key);
+        if (merged == null) {
+            batch.put(key, row);
+            return;
+        }
+        if (row.getName() != null) {
+            merged.setName(row.getName());
+        }
+        if (row.getCategory() != null) {
+            merged.setCategory(row.getCategory());
+        }
+        if (row.getPrice() != null) {
+            merged.setPrice(row.getPrice());
+        }
+        if (row.getDescription() != null) {
+            merged.setDescription(row.getDescription());
+        }
+        if (row.isActive() != null) {
+            merged.setActive(row.isActive());
+        }
+        if (row.getQuantity() != null) {
+            merged.setQuantity(restock && merged.getQuantity() != null
+                    ? merged.getQuantity() + row.getQuantity()
+                    : row.getQuantity());
+        }
+    }
+
+    private void flush(Map<String, Sweet> batch, boolean restock, List<String> errors, ImportProgress totals,
+                       long started, Consumer<ImportProgress> onBatch) {
+        int rowsInBatch = batch.size();
+        if (rowsInBatch > 0) {
+            try {
+                count(totals, sweetRepository.upsertBatch(new ArrayList<>(batch.values()), restock));
+            } catch (BulkOperationException e) {
+                // Unordered, so every row without an error was still written
+                count(totals, e.getResult());
+                totals.setFailed(totals.getFailed() + e.getErrors().size());
+                List<Sweet> rows = new ArrayList<>(batch.values());
+                for (BulkWriteError error : e.getErrors()) {
+                    Sweet row = rows.get(error.getIndex());
+                    addError(errors, (row.getId() != null ? row.getId() : row.getName()) + ": " + error.getMessage());
+                }
+            } catch (DataAccessException e) {
+                totals.setFailed(totals.getFailed() + rowsInBatch);
+                addError(errors, "batch " + (totals.getBatch() + 1) + " not written: " + e.getMostSpecificCause().getMessage());
+            }
+        }
+        totals.setBatch(totals.getBatch() + 1);
+        totals.setBatchRows(rowsInBatch);
+        totals.setErrors(List.copyOf(errors));
+        stamp(totals, started);
+        onBatch.accept(totals);
+
+        batch.clear();
+        errors.clear();
+    }
+
+    private static void count(ImportProgress totals, BulkWriteResult result) {
+        totals.setUpserted(totals.getUpserted() + result.getUpserts().size());
+        totals.setModified(totals.getModified() + result.getModifiedCount());
+    }
+
+    private void stamp(ImportProgress totals, long started) {
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        totals.setElapsedMillis(elapsedMillis);
+        totals.setRowsPerSecond(elapsedMillis == 0 ? totals.getRowsRead() : totals.getRowsRead() * 1000 / elapsedMillis);
+    }
+
+    private void addError(List<String> errors, String message) {
+        if (errors.size() < MAX_ERRORS_PER_BATCH) {
+            errors.add(message);
+        }
+    }
+
+    private interface RowReader {
+        // Next parsed row, or null at end of input; IllegalArgumentException for a row that cannot be parsed
+        Sweet next() throws IOException;
+
+        long lineNumber();
+    }
+
+    private static class NdjsonRowReader implements RowReader {
+
+        private final BufferedReader reader;
+        private final ObjectReader jsonReader;
+        private long line;
+
+        NdjsonRowReader(BufferedReader reader, ObjectReader jsonReader) {
+            this.reader = reader;
+            this.jsonReader = jsonReader;
+        }
+
+        @Override
+        public Sweet next() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                if (text == null) {
+                    return null;
+                }
+                line++;
+            } while (text.isBlank());
+            try {
+                return jsonReader.readValue(text);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("invalid JSON");
+            }
+        }
+
+        @Override
+        public long lineNumber() {
+            return line;
+        }
+    }
+
+    // RFC 4180 style: the first record is the header, fields may be quoted, quotes inside are doubled
+    private static class CsvRowReader implements RowReader {
+
+        private final BufferedReader reader;
+        private final StringBuilder field = new StringBuilder();
+        private Map<String, Integer> columns;
+        private long line;
+
+        CsvRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Sweet next() throws IOException {
+            if (columns == null) {
+                List<String> header = readRecord();
+                if (header == null) {
+                    return null;
+                }
+                columns = new HashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    columns.put(header.get(i).trim().toLowerCase(), i);
+                }
+            }
+            List<String> record;
+            do {
+                record = readRecord();
+                if (record == null) {
+                    return null;
+                }
+            } while (record.size() == 1 && record.get(0).isBlank());
+
+            Sweet sweet = new Sweet();
+            sweet.setId(text(record, "id"));
+            sweet.setName(text(record, "name"));
+            sweet.setCategory(text(record, "category"));
+            sweet.setDescription(text(record, "description"));
+            try {
+                String price = text(record, "price");
+                sweet.setPrice(price == null ? null : Double.valueOf(price));
+                String quantity = text(record, "quantity");
+                sweet.setQuantity(quantity == null ? null : Integer.valueOf(quantity));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("invalid number");
+            }
+            String active = text(record, "active");
+            sweet.setActive(active == null ? null : Boolean.valueOf(active));
+            return sweet;
+        }
+
+        @Override
+        public long lineNumber() {
+            return line;
+        }
+
+        private String text(List<String> record, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= record.size()) {
+                return null;
+            }
+            String value = record.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        private List<String> readRecord() throws IOException {
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+            line++;
+            List<String> record = new ArrayList<>();
+            boolean quoted = false;
+            field.setLength(0);
+            while (c != -1) {
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        int peek = reader.read();
+                        if (peek == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            reader.reset();
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    record.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = reader.read();
+            }
+            record.add(field.toString());
+            return record;
+        }
+    }
+}
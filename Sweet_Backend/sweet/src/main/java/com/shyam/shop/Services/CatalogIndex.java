@@ -0,0 +1,124 @@
+package com.shyam.shop.Services;
+
+import com.shyam.shop.Models.Sweet;
+import com.shyam.shop.Models.SweetPage;
+import com.shyam.shop.Repository.SweetSearch;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Serves /api/sweets/search with facet counts from CatalogColumns instead of Mongo. The columns are loaded
+// from the catalog snapshot on first use and then patched by every sweet change event; a reset reloads them.
+@Component
+public class CatalogIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogIndex.class);
+
+    private final SweetCatalog catalog;
+    private final double[] priceBuckets;
+    private final long tombstoneTtlMillis;
+    private volatile CatalogColumns columns;
+    private volatile boolean built;
+    private final Object buildLock = new Object();
+    // While a build is loading, the changes it may have missed; guarded by this
+    private List<ChangeEvent> missed;
+    private boolean resetDuringBuild;
+
+    private final Timer searches;
+
+    public CatalogIndex(SweetCatalog catalog,
+                        ChangeEventBus events,
+                        MeterRegistry meterRegistry,
+                        @Value("${shop.catalog.price-buckets:100,250,500,1000}") double[] priceBuckets,
+                        @Value("${shop.events.tombstone-ttl-seconds:600}") long tombstoneTtlSeconds) {
+        this.catalog = catalog;
+        this.priceBuckets = priceBuckets.clone();
+        this.tombstoneTtlMillis = TimeUnit.SECONDS.toMillis(tombstoneTtlSeconds);
+        this.columns = new CatalogColumns(priceBuckets, tombstoneTtlMillis);
+        events.subscribe(ChangeEvent.Kind.SWEET, this::onChange);
+
+        this.searches = Timer.builder("shop.catalog.search").register(meterRegistry);
+        Gauge.builder("shop.catalog.columns.size", this, index -> index.columns.size()).register(meterRegistry);
+    }
+
+    // Loads the columns if needed, which may read Mongo once
+    public SweetPage search(SweetSearch search, boolean withFacets) {
+        load();
+        long started = System.nanoTime();
+        SweetPage page = columns.search(search, withFacets);
+        searches.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        return page;
+    }
+
+    public void load() {
+        if (!built) {
+            build();
+        }
+    }
+
+    // Never loads, so non-blocking callers can tell whether search() would answer from memory
+    public boolean isReady() {
+        return built;
+    }
+
+    // Events before the first load are already in the catalog snapshot it reads, since the catalog subscribed first
+    private synchronized void onChange(ChangeEvent event) {
+        if (event.isReset()) {
+            built = false;
+            resetDuringBuild = missed != null;
+            return;
+        }
+        if (missed != null) {
+            missed.add(event);
+        }
+        if (built) {
+            apply(columns, event);
+        }
+    }
+
+    private static void apply(CatalogColumns columns, ChangeEvent event) {
+        if (event.getDocument() instanceof Sweet sweet) {
+            columns.upsert(sweet);
+        } else {
+            columns.upsert(CatalogSnapshot.deleted(event.getId(), event.getTimestampMillis()));
+        }
+    }
+
+    // Loads fresh columns without holding the monitor change events need, then swaps them in
+    private void build() {
+        synchronized (buildLock) {
+            if (built) {
+                return;
+            }
+            long started = System.nanoTime();
+            synchronized (this) {
+                missed = new ArrayList<>();
+                resetDuringBuild = false;
+            }
+            CatalogColumns fresh = new CatalogColumns(priceBuckets, tombstoneTtlMillis);
+            try {
+                fresh.load(catalog.snapshot().getSweets());
+            } finally {
+                synchronized (this) {
+                    for (ChangeEvent event : missed) {
+                        apply(fresh, event);
+                    }
+                    missed = null;
+                    columns = fresh;
+                    // After a reset the next search loads again; this one is served from what was read
+                    built = !resetDuringBuild;
+                }
+            }
+            log.info("Loaded catalog columns for {} sweets in {} ms", fresh.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.shyam.shop.Services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Keeps GET /api/sweets pre-rendered: Jackson and compression run once per catalog change, on the first
+// read after it, and every other request is a lookup. A burst of writes costs one render, not one per write.
+@Component
+public class CatalogRenderer {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogRenderer.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final AtomicReference<RenderedCatalog> current = new AtomicReference<>();
+    private final Object renderLock = new Object();
+    private final LongAdder renders = new LongAdder();
+
+    @Autowired
+    void registerMetrics(MeterRegistry meterRegistry) {
+        FunctionCounter.builder("shop.catalog.renders", renders, LongAdder::sum).register(meterRegistry);
+    }
+
+    public RenderedCatalog render(CatalogSnapshot snapshot) {
+        RenderedCatalog rendered = current.get();
+        if (rendered != null && rendered.getSnapshot() == snapshot) {
+            return rendered;
+        }
+        synchronized (renderLock) {
+            rendered = current.get();
+            if (rendered != null && rendered.getSnapshot() == snapshot) {
+                return rendered;
+            }
+            rendered = renderNow(snapshot);
+            // Never replace a newer rendering with an older snapshot that a slow reader was still holding
+            if (current.get() == null || current.get().getSnapshot().getVersion() <= snapshot.getVersion()) {
+                current.set(rendered);
+            }
+            return rendered;
+        }
+    }
+
+    private RenderedCatalog renderNow(CatalogSnapshot snapshot) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(snapshot.getSweets());
+            byte[] gzip = gzip(json);
+            byte[] deflate = deflate(json);
+            renders.increment();
+            log.debug("Rendered catalog v{}: {} bytes json, {} gzip, {} deflate",
+                    snapshot.getVersion(), json.length, gzip.length, deflate.length);
+            return new RenderedCatalog(snapshot, json, gzip, deflate);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Paid once per change, so both use the strongest level
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream out = new LevelGzipOutputStream(buffer)) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    // HTTP "deflate" is the zlib format, i.e. a Deflater with its header and checksum
+    private static byte[] deflate(byte[] json) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4 + 64);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(buffer, deflater)) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return buffer.toByteArray();
+    }
+
+    private static class LevelGzipOutputStream extends GZIPOutputStream {
+
+        LevelGzipOutputStream(OutputStream out) throws IOException {
+            super(out);
+            def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+    }
+}
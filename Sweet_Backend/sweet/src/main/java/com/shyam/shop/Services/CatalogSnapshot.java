@@ -0,0 +1,165 @@
+package com.shyam.shop.Services;
+
+import com.shyam.shop.Models.Sweet;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+
+// Immutable, versioned view of the active catalog; consecutive snapshots share all but the changed chunk of sweets.
+public final class CatalogSnapshot {
+
+    private final long version;
+    private final ChunkedSweetMap byId;
+    // Shared by every snapshot of one load; writer only
+    private final Tombstones removed;
+    private final int size;
+
+    // XOR of every sweet's fingerprint, so a single change updates it in O(1) and equal content gives an equal ETag
+    private final long digest;
+    private final LocalDateTime lastModified;
+    private volatile List<Sweet> sweets;
+
+    private CatalogSnapshot(long version, ChunkedSweetMap byId, Tombstones removed,
+                            int size, long digest, LocalDateTime lastModified) {
+        this.version = version;
+        this.byId = byId;
+        this.removed = removed;
+        this.size = size;
+        this.digest = digest;
+        this.lastModified = lastModified;
+    }
+
+    public static CatalogSnapshot of(long version, Collection<Sweet> activeSweets, LocalDateTime lastModifiedFloor) {
+        return of(version, activeSweets, lastModifiedFloor, new Tombstones(Tombstones.DEFAULT_TTL_MILLIS));
+    }
+
+    // lastModifiedFloor covers changes no active sweet shows any more, such as the newest delete
+    static CatalogSnapshot of(long version, Collection<Sweet> activeSweets, LocalDateTime lastModifiedFloor,
+                              Tombstones removed) {
+        TreeMap<String, Sweet> byId = new TreeMap<>();
+        long digest = 0;
+        LocalDateTime lastModified = lastModifiedFloor;
+        for (Sweet sweet : activeSweets) {
+            Sweet previous = byId.put(sweet.getId(), sweet);
+            if (previous != null) {
+                digest ^= fingerprint(previous);
+            }
+            digest ^= fingerprint(sweet);
+            lastModified = latest(lastModified, sweet.getUpdatedAt());
+        }
+        return new CatalogSnapshot(version, ChunkedSweetMap.of(byId.values()), removed, byId.size(), digest,
+                lastModified);
+    }
+
+    // Stand-in for a hard delete, which leaves only the id: inactive as of the time of the event
+    public static Sweet deleted(String id, long timestampMillis) {
+        Sweet sweet = new Sweet();
+        sweet.setId(id);
+        sweet.setActive(false);
+        sweet.setUpdatedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(timestampMillis), ZoneId.systemDefault()));
+        return sweet;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // In id order, which for ObjectIds is creation order
+    public List<Sweet> getSweets() {
+        List<Sweet> list = sweets;
+        if (list == null) {
+            list = byId.toList();
+            sweets = list;
+        }
+        return list;
+    }
+
+    public Sweet get(String id) {
+        return byId.get(id);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public LocalDateTime getLastModified() {
+        return lastModified;
+    }
+
+    // Strong validator for every response derived from the whole catalog (list and search)
+    public String getETag() {
+        return "\"c" + size + "-" + Long.toHexString(digest) + "\"";
+    }
+
+    public long getLastModifiedMillis() {
+        return toMillis(lastModified);
+    }
+
+    public static String eTagOf(Sweet sweet) {
+        return "\"s" + Long.toHexString(fingerprint(sweet)) + "\"";
+    }
+
+    public static long toMillis(LocalDateTime time) {
+        return time == null ? -1 : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // Only ever called on the newest snapshot, by one writer at a time, since the tombstones are shared. Returns
+    // this snapshot unchanged when the incoming copy is not newer than the one already held or removed.
+    CatalogSnapshot withUpsert(Sweet sweet) {
+        Sweet current = byId.get(sweet.getId());
+        if (isStale(sweet, current != null ? current : removed.get(sweet.getId()))) {
+            return this;
+        }
+        removed.remove(sweet.getId());
+        long nextDigest = digest ^ fingerprint(sweet) ^ (current == null ? 0 : fingerprint(current));
+        return new CatalogSnapshot(version + 1, byId.with(sweet), removed, current == null ? size + 1 : size,
+                nextDigest, latest(lastModified, sweet.getUpdatedAt()));
+    }
+
+    CatalogSnapshot withRemoval(Sweet sweet) {
+        Sweet current = byId.get(sweet.getId());
+        if (isStale(sweet, current != null ? current : removed.get(sweet.getId()))) {
+            return this;
+        }
+        removed.put(sweet);
+        if (current == null) {
+            return this;
+        }
+        return new CatalogSnapshot(version + 1, byId.without(sweet.getId()), removed, size - 1,
+                digest ^ fingerprint(current), latest(lastModified, sweet.getUpdatedAt()));
+    }
+
+    static boolean isStale(Sweet incoming, Sweet current) {
+        if (current == null) {
+            return false;
+        }
+        if (incoming.getRevision() != null && current.getRevision() != null) {
+            return incoming.getRevision() <= current.getRevision();
+        }
+        return incoming.getUpdatedAt() != null
+                && current.getUpdatedAt() != null
+                && incoming.getUpdatedAt().isBefore(current.getUpdatedAt());
+    }
+
+    // Every write bumps revision and updatedAt, so (id, revision, updatedAt) identifies one state of a sweet
+    private static long fingerprint(Sweet sweet) {
+        long h = sweet.getId() == null ? 0 : sweet.getId().hashCode();
+        h = h * 0x9E3779B97F4A7C15L + (sweet.getRevision() == null ? 0 : sweet.getRevision());
+        h = h * 0x9E3779B97F4A7C15L + (sweet.getUpdatedAt() == null ? 0 : sweet.getUpdatedAt().hashCode());
+        // splitmix64 finalizer spreads the bits so XOR-ing many fingerprints does not cancel out patterns
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.isAfter(b) ? a : b;
+    }
+}
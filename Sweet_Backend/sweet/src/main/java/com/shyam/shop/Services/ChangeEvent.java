@@ -0,0 +1,63 @@
+package com.shyam.shop.Services;
+
+import com.shyam.shop.Models.Sweet;
+import com.shyam.shop.Models.User;
+
+// One committed write, as seen by the caches. A null id means "anything of this kind may have changed",
+// a null document means the id is gone (or its new state is unknown) and must be dropped.
+public final class ChangeEvent {
+
+    public enum Kind {
+        SWEET,
+        USER
+    }
+
+    private final Kind kind;
+    private final String id;
+    private final Object document;
+    private final long timestampMillis;
+
+    public ChangeEvent(Kind kind, String id, Object document, long timestampMillis) {
+        this.kind = kind;
+        this.id = id;
+        this.document = document;
+        this.timestampMillis = timestampMillis;
+    }
+
+    public static ChangeEvent sweet(Sweet sweet) {
+        return new ChangeEvent(Kind.SWEET, sweet.getId(), sweet, System.currentTimeMillis());
+    }
+
+    public static ChangeEvent user(User user) {
+        return new ChangeEvent(Kind.USER, user.getId(), user, System.currentTimeMillis());
+    }
+
+    public static ChangeEvent removed(Kind kind, String id) {
+        return new ChangeEvent(kind, id, null, System.currentTimeMillis());
+    }
+
+    public static ChangeEvent reset(Kind kind) {
+        return new ChangeEvent(kind, null, null, System.currentTimeMillis());
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Object getDocument() {
+        return document;
+    }
+
+    // When the write happened on the node that made it; the receiving side measures lag against this
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public boolean isReset() {
+        return id == null;
+    }
+}
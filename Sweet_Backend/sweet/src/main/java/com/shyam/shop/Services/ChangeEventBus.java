@@ -0,0 +1,12 @@
+package com.shyam.shop.Services;
+
+import java.util.function.Consumer;
+
+// Every service write is published here after it commits, and every in-JVM cache subscribes to it.
+// The local bus only reaches this node; the Mongo bus also delivers writes made by the other replicas.
+public interface ChangeEventBus {
+
+    void publish(ChangeEvent event);
+
+    void subscribe(ChangeEvent.Kind kind, Consumer<ChangeEvent> listener);
+}
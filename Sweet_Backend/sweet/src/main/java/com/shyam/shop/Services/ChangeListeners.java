@@ -0,0 +1,38 @@
+package com.shyam.shop.Services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Subscriber registry shared by the bus implementations. A failing cache must not fail the write that fed it.
+final class ChangeListeners {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeListeners.class);
+
+    private final Map<ChangeEvent.Kind, List<Consumer<ChangeEvent>>> listeners = new EnumMap<>(ChangeEvent.Kind.class);
+
+    ChangeListeners() {
+        for (ChangeEvent.Kind kind : ChangeEvent.Kind.values()) {
+            listeners.put(kind, new CopyOnWriteArrayList<>());
+        }
+    }
+
+    void add(ChangeEvent.Kind kind, Consumer<ChangeEvent> listener) {
+        listeners.get(kind).add(listener);
+    }
+
+    void dispatch(ChangeEvent event) {
+        for (Consumer<ChangeEvent> listener : listeners.get(event.getKind())) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                log.warn("Change listener failed for {} {}: {}", event.getKind(), event.getId(), e.getMessage());
+            }
+        }
+    }
+}
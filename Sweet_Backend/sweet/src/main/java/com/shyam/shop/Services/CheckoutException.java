@@ -0,0 +1,26 @@
+package com.shyam.shop.Services;
+
+import com.shyam.shop.Models.CheckoutFailure;
+
+import java.util.List;
+
+public class CheckoutException extends RuntimeException {
+
+    private final List<CheckoutFailure> failures;
+    private final boolean invalidRequest;
+
+    public CheckoutException(List<CheckoutFailure> failures, boolean invalidRequest) {
+        super(invalidRequest ? "Invalid checkout request" : "Checkout failed");
+        this.failures = failures;
+        this.invalidRequest = invalidRequest;
+    }
+
+    public List<CheckoutFailure> getFailures() {
+        return failures;
+    }
+
+    // True when the cart itself was malformed, false when stock or availability rejected it
+    public boolean isInvalidRequest() {
+        return invalidRequest;
+    }
+}
@@ -0,0 +1,142 @@
+package com.shyam.shop.Services;
+
+import com.shyam.shop.Models.Sweet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+// Immutable sweets sorted by id, in chunks of up to 2 * CHUNK. A change copies one chunk and the chunk index,
+// so every version stays intact at a cost of O(CHUNK + n / CHUNK) instead of O(n).
+final class ChunkedSweetMap {
+
+    private static final int CHUNK = 256;
+
+    private final Sweet[][] chunks;
+    private final int size;
+
+    private ChunkedSweetMap(Sweet[][] chunks, int size) {
+        this.chunks = chunks;
+        this.size = size;
+    }
+
+    // sortedById must be in ascending id order without duplicates
+    static ChunkedSweetMap of(Collection<Sweet> sortedById) {
+        Sweet[] all = sortedById.toArray(new Sweet[0]);
+        Sweet[][] chunks = new Sweet[(all.length + CHUNK - 1) / CHUNK][];
+        for (int c = 0; c < chunks.length; c++) {
+            chunks[c] = Arrays.copyOfRange(all, c * CHUNK, Math.min(all.length, (c + 1) * CHUNK));
+        }
+        return new ChunkedSweetMap(chunks, all.length);
+    }
+
+    int size() {
+        return size;
+    }
+
+    Sweet get(String id) {
+        int c = chunkFor(id);
+        if (c < 0) {
+            return null;
+        }
+        int i = indexIn(chunks[c], id);
+        return i >= 0 ? chunks[c][i] : null;
+    }
+
+    ChunkedSweetMap with(Sweet sweet) {
+        if (chunks.length == 0) {
+            return new ChunkedSweetMap(new Sweet[][]{{sweet}}, 1);
+        }
+        int c = chunkFor(sweet.getId());
+        Sweet[] chunk = chunks[c];
+        int i = indexIn(chunk, sweet.getId());
+        Sweet[][] next = chunks.clone();
+        if (i >= 0) {
+            Sweet[] replaced = chunk.clone();
+            replaced[i] = sweet;
+            next[c] = replaced;
+            return new ChunkedSweetMap(next, size);
+        }
+        int at = -i - 1;
+        Sweet[] grown = new Sweet[chunk.length + 1];
+        System.arraycopy(chunk, 0, grown, 0, at);
+        grown[at] = sweet;
+        System.arraycopy(chunk, at, grown, at + 1, chunk.length - at);
+        if (grown.length <= 2 * CHUNK) {
+            next[c] = grown;
+            return new ChunkedSweetMap(next, size + 1);
+        }
+        Sweet[][] split = new Sweet[chunks.length + 1][];
+        System.arraycopy(chunks, 0, split, 0, c);
+        split[c] = Arrays.copyOfRange(grown, 0, CHUNK);
+        split[c + 1] = Arrays.copyOfRange(grown, CHUNK, grown.length);
+        System.arraycopy(chunks, c + 1, split, c + 2, chunks.length - c - 1);
+        return new ChunkedSweetMap(split, size + 1);
+    }
+
+    ChunkedSweetMap without(String id) {
+        int c = chunkFor(id);
+        if (c < 0) {
+            return this;
+        }
+        Sweet[] chunk = chunks[c];
+        int i = indexIn(chunk, id);
+        if (i < 0) {
+            return this;
+        }
+        if (chunk.length == 1) {
+            Sweet[][] fewer = new Sweet[chunks.length - 1][];
+            System.arraycopy(chunks, 0, fewer, 0, c);
+            System.arraycopy(chunks, c + 1, fewer, c, chunks.length - c - 1);
+            return new ChunkedSweetMap(fewer, size - 1);
+        }
+        Sweet[] shrunk = new Sweet[chunk.length - 1];
+        System.arraycopy(chunk, 0, shrunk, 0, i);
+        System.arraycopy(chunk, i + 1, shrunk, i, chunk.length - i - 1);
+        Sweet[][] next = chunks.clone();
+        next[c] = shrunk;
+        return new ChunkedSweetMap(next, size - 1);
+    }
+
+    List<Sweet> toList() {
+        List<Sweet> list = new ArrayList<>(size);
+        for (Sweet[] chunk : chunks) {
+            list.addAll(Arrays.asList(chunk));
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    // The last chunk whose first id is not after id (the first chunk for smaller ids); -1 when empty
+    private int chunkFor(String id) {
+        int lo = 0;
+        int hi = chunks.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (chunks[mid][0].getId().compareTo(id) <= 0) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return hi;
+    }
+
+    private static int indexIn(Sweet[] chunk, String id) {
+        int lo = 0;
+        int hi = chunk.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = chunk[mid].getId().compareTo(id);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(lo + 1);
+    }
+}
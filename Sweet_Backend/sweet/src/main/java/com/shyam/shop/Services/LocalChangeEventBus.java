@@ -0,0 +1,32 @@
+package com.shyam.shop.Services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+// Loopback bus for a single node and for tests: listeners run on the writing thread, so lag is zero
+@Component
+@ConditionalOnProperty(name = "shop.events.bus", havingValue = "local", matchIfMissing = true)
+public class LocalChangeEventBus implements ChangeEventBus {
+
+    private final ChangeListeners listeners = new ChangeListeners();
+    private final Counter published;
+
+    public LocalChangeEventBus(MeterRegistry meterRegistry) {
+        this.published = Counter.builder("shop.events.published").tag("bus", "local").register(meterRegistry);
+    }
+
+    @Override
+    public void publish(ChangeEvent event) {
+        published.increment();
+        listeners.dispatch(event);
+    }
+
+    @Override
+    public void subscribe(ChangeEvent.Kind kind, Consumer<ChangeEvent> listener) {
+        listeners.add(kind, listener);
+    }
+}
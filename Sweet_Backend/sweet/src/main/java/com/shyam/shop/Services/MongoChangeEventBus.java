@@ -0,0 +1,277 @@
+package com.shyam.shop.Services;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.shyam.shop.Models.Sweet;
+import com.shyam.shop.Models.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Multi-replica bus: local writes are dispatched directly, and a change stream on sweets and users delivers every
+// write from any node. Needs a replica set or sharded cluster.
+@Component
+@ConditionalOnProperty(name = "shop.events.bus", havingValue = "mongo")
+public class MongoChangeEventBus implements ChangeEventBus {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoChangeEventBus.class);
+    private static final long MAX_BACKOFF_MILLIS = 10_000;
+    // Server gave up on the resume point, so whatever happened in between is lost
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+    private static final int CHANGE_STREAM_FATAL = 280;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // A batch with at least this many writes of one kind drops that cache instead of patching it entry by entry
+    @Value("${shop.events.reset-threshold:256}")
+    private int resetThreshold;
+
+    @Value("${shop.events.max-await-ms:1000}")
+    private long maxAwaitMillis;
+
+    private final ChangeListeners listeners = new ChangeListeners();
+    private final Counter published;
+    private final Counter received;
+    private final Counter restarts;
+    private final Timer lag;
+    private final AtomicInteger connected = new AtomicInteger();
+
+    private volatile boolean running;
+    private volatile Thread watcher;
+    private volatile BsonDocument resumeToken;
+    private volatile long lastPollMillis = System.currentTimeMillis();
+
+    public MongoChangeEventBus(MeterRegistry meterRegistry) {
+        this.published = Counter.builder("shop.events.published").tag("bus", "mongo").register(meterRegistry);
+        this.received = Counter.builder("shop.events.received").tag("bus", "mongo").register(meterRegistry);
+        this.restarts = Counter.builder("shop.events.stream.restarts").register(meterRegistry);
+        this.lag = Timer.builder("shop.events.lag")
+                .description("Time from a write committing to this node's caches seeing it")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("shop.events.stream.connected", connected, AtomicInteger::get).register(meterRegistry);
+        // Upper bound on how stale the caches can be: nothing written after the last successful poll has been seen
+        Gauge.builder("shop.events.stream.staleness", this, bus -> (System.currentTimeMillis() - bus.lastPollMillis) / 1000.0)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void publish(ChangeEvent event) {
+        published.increment();
+        listeners.dispatch(event);
+    }
+
+    @Override
+    public void subscribe(ChangeEvent.Kind kind, Consumer<ChangeEvent> listener) {
+        listeners.add(kind, listener);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        Thread thread = new Thread(this::watch, "mongo-change-stream");
+        thread.setDaemon(true);
+        watcher = thread;
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        Thread thread = watcher;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void watch() {
+        long backoff = 100;
+        while (running) {
+            try {
+                watchUntilClosed();
+                backoff = 100;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                connected.set(0);
+                restarts.increment();
+                if (e instanceof MongoException mongo
+                        && (mongo.getCode() == CHANGE_STREAM_HISTORY_LOST || mongo.getCode() == CHANGE_STREAM_FATAL)) {
+                    resumeToken = null;
+                }
+                // Anything else (a listener or converter failure included) resumes after the last delivered batch
+                log.warn("Change stream failed, reopening in {} ms", backoff, e);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+        connected.set(0);
+    }
+
+    private void watchUntilClosed() {
+        String sweets = mongoTemplate.getCollectionName(Sweet.class);
+        String users = mongoTemplate.getCollectionName(User.class);
+        ChangeStreamIterable<Document> stream = mongoTemplate.getDb()
+                .watch(List.of(Aggregates.match(Filters.in("ns.coll", sweets, users))))
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(maxAwaitMillis, TimeUnit.MILLISECONDS);
+        BsonDocument token = resumeToken;
+        if (token != null) {
+            stream = stream.resumeAfter(token);
+        }
+
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+            connected.set(1);
+            if (token == null) {
+                // Without a resume point we cannot know what was missed before the stream opened
+                dispatchResets();
+            }
+            List<ChangeStreamDocument<Document>> batch = new ArrayList<>();
+            while (running) {
+                ChangeStreamDocument<Document> change = cursor.tryNext();
+                lastPollMillis = System.currentTimeMillis();
+                if (change != null) {
+                    batch.add(change);
+                    while (batch.size() < resetThreshold && cursor.available() > 0) {
+                        batch.add(cursor.next());
+                    }
+                    boolean invalidated = deliver(batch, sweets);
+                    batch.clear();
+                    if (invalidated) {
+                        resumeToken = null;
+                        return;
+                    }
+                }
+                BsonDocument latest = cursor.getResumeToken();
+                if (latest != null) {
+                    resumeToken = latest;
+                }
+            }
+        }
+    }
+
+    // Returns true when the server closed the stream for good and it must be reopened from scratch
+    private boolean deliver(List<ChangeStreamDocument<Document>> batch, String sweets) {
+        long now = System.currentTimeMillis();
+        int sweetChanges = 0;
+        for (ChangeStreamDocument<Document> change : batch) {
+            if (sweets.equals(collectionOf(change))) {
+                sweetChanges++;
+            }
+        }
+        boolean resetSweets = sweetChanges >= resetThreshold;
+        boolean resetUsers = batch.size() - sweetChanges >= resetThreshold;
+        if (resetSweets) {
+            listeners.dispatch(ChangeEvent.reset(ChangeEvent.Kind.SWEET));
+        }
+        if (resetUsers) {
+            listeners.dispatch(ChangeEvent.reset(ChangeEvent.Kind.USER));
+        }
+
+        for (ChangeStreamDocument<Document> change : batch) {
+            received.increment();
+            if (change.getOperationType() == OperationType.INVALIDATE) {
+                dispatchResets();
+                return true;
+            }
+            ChangeEvent.Kind kind = sweets.equals(collectionOf(change)) ? ChangeEvent.Kind.SWEET : ChangeEvent.Kind.USER;
+            long writtenAt = writtenAt(change, now);
+            lag.record(Math.max(0, now - writtenAt), TimeUnit.MILLISECONDS);
+            if ((kind == ChangeEvent.Kind.SWEET && resetSweets) || (kind == ChangeEvent.Kind.USER && resetUsers)) {
+                continue;
+            }
+            listeners.dispatch(toEvent(change, kind, writtenAt));
+        }
+        return false;
+    }
+
+    private ChangeEvent toEvent(ChangeStreamDocument<Document> change, ChangeEvent.Kind kind, long writtenAt) {
+        String id = idOf(change.getDocumentKey());
+        switch (change.getOperationType()) {
+            case INSERT, UPDATE, REPLACE -> {
+                Document document = change.getFullDocument();
+                if (document == null || id == null) {
+                    // The document was deleted again before the lookup ran
+                    return new ChangeEvent(kind, id, null, writtenAt);
+                }
+                Class<?> type = kind == ChangeEvent.Kind.SWEET ? Sweet.class : User.class;
+                return new ChangeEvent(kind, id, mongoTemplate.getConverter().read(type, document), writtenAt);
+            }
+            case DELETE -> {
+                return new ChangeEvent(kind, id, null, writtenAt);
+            }
+            default -> {
+                // drop, rename and anything newer than this driver: start that cache over
+                return new ChangeEvent(kind, null, null, writtenAt);
+            }
+        }
+    }
+
+    private void dispatchResets() {
+        for (ChangeEvent.Kind kind : ChangeEvent.Kind.values()) {
+            listeners.dispatch(ChangeEvent.reset(kind));
+        }
+    }
+
+    private static String collectionOf(ChangeStreamDocument<Document> change) {
+        return change.getNamespace() == null ? null : change.getNamespace().getCollectionName();
+    }
+
+    // Wall time is only reported by MongoDB 6.0+; older servers give the cluster time in whole seconds
+    private static long writtenAt(ChangeStreamDocument<Document> change, long fallback) {
+        if (change.getWallTime() != null) {
+            return change.getWallTime().getValue();
+        }
+        if (change.getClusterTime() != null) {
+            return change.getClusterTime().getTime() * 1000L;
+        }
+        return fallback;
+    }
+
+    private static String idOf(BsonDocument documentKey) {
+        if (documentKey == null) {
+            return null;
+        }
+        BsonValue id = documentKey.get("_id");
+        if (id == null) {
+            return null;
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+}
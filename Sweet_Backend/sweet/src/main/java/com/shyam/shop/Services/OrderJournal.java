@@ -0,0 +1,240 @@
+package com.shyam.shop.Services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.shyam.shop.Models.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+// Local write-ahead log for the order ledger, so queued orders survive a crash. Segments are deleted once all
+// their orders reached Mongo; a segment's file lock tells a dead owner from a live one.
+final class OrderJournal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderJournal.class);
+    private static final String PREFIX = "orders-";
+    private static final String SUFFIX = ".ndjson";
+
+    private final Path dir;
+    private final long segmentBytes;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader orderReader;
+    // Segment names start with this, so a node never mistakes its own segments for leftovers
+    private final String owner = UUID.randomUUID().toString().substring(0, 8);
+
+    private final Map<Long, Segment> segments = new HashMap<>();
+    private Segment current;
+    private long nextSeq;
+    private boolean dirty;
+    private boolean closed;
+
+    OrderJournal(Path dir, long segmentBytes, ObjectMapper objectMapper) throws IOException {
+        this.dir = Files.createDirectories(dir);
+        this.segmentBytes = segmentBytes;
+        this.objectMapper = objectMapper;
+        this.orderReader = objectMapper.readerFor(Order.class);
+    }
+
+    // Returns the segment the order landed in, to be passed back to persisted() once it is stored
+    long append(Order order) throws IOException {
+        byte[] line = objectMapper.writeValueAsBytes(order);
+        ByteBuffer buffer = ByteBuffer.allocate(line.length + 1).put(line).put((byte) '\n').flip();
+        synchronized (this) {
+            if (closed) {
+                throw new IOException("Order journal is closed");
+            }
+            if (current == null || current.channel.position() >= segmentBytes) {
+                roll();
+            }
+            while (buffer.hasRemaining()) {
+                current.channel.write(buffer);
+            }
+            current.appended++;
+            dirty = true;
+            return current.seq;
+        }
+    }
+
+    synchronized void persisted(long seq, int count) throws IOException {
+        Segment segment = segments.get(seq);
+        if (segment == null) {
+            return;
+        }
+        segment.persisted += count;
+        if (segment != current && segment.persisted >= segment.appended) {
+            delete(segment);
+        }
+    }
+
+    // Group commit: appends only reach the page cache, which covers a process crash; this makes them survive
+    // a machine crash too, and runs once per flush rather than once per order
+    void sync() throws IOException {
+        FileChannel channel;
+        synchronized (this) {
+            if (!dirty || current == null) {
+                return;
+            }
+            dirty = false;
+            channel = current.channel;
+        }
+        try {
+            channel.force(false);
+        } catch (ClosedChannelException e) {
+            // Rolled or closed meanwhile, and both force the segment first
+        }
+    }
+
+    // Segments from other processes that are no longer locked, oldest first
+    List<Path> leftovers() throws IOException {
+        List<Path> found = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                if (!file.getFileName().toString().startsWith(PREFIX + owner + "-")) {
+                    found.add(file);
+                }
+            }
+        }
+        found.sort((a, b) -> {
+            try {
+                return Files.getLastModifiedTime(a).compareTo(Files.getLastModifiedTime(b));
+            } catch (IOException e) {
+                return 0;
+            }
+        });
+        return found;
+    }
+
+    // Hands the segment's orders to sink in batches and deletes the file once all of them were accepted. Returns -1
+    // when another live process holds the segment. If sink throws, the file is kept for the next attempt.
+    int replay(Path file, int batchSize, Consumer<List<Order>> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                return -1;
+            }
+            int replayed = 0;
+            int skipped = 0;
+            List<Order> batch = new ArrayList<>(batchSize);
+            BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    batch.add(orderReader.readValue(line));
+                } catch (IOException e) {
+                    // Normally the last line, cut short by the crash before the order was ever acknowledged
+                    skipped++;
+                    continue;
+                }
+                if (batch.size() == batchSize) {
+                    sink.accept(batch);
+                    replayed += batch.size();
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                sink.accept(batch);
+                replayed += batch.size();
+            }
+            if (skipped > 0) {
+                log.warn("Skipped {} unreadable lines in order journal {}", skipped, file.getFileName());
+            }
+            Files.deleteIfExists(file);
+            return replayed;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        if (current == null) {
+            return;
+        }
+        Segment last = current;
+        current = null;
+        last.channel.force(false);
+        if (last.persisted >= last.appended) {
+            delete(last);
+        } else {
+            // Kept on disk for the next start to replay
+            segments.remove(last.seq);
+            last.channel.close();
+        }
+        for (Segment segment : List.copyOf(segments.values())) {
+            segments.remove(segment.seq);
+            segment.channel.close();
+        }
+    }
+
+    private void roll() throws IOException {
+        Segment previous = current;
+        if (previous != null) {
+            previous.channel.force(false);
+            if (previous.persisted >= previous.appended) {
+                delete(previous);
+            }
+        }
+        // Locked for as long as it exists, even after it stops taking appends
+        while (true) {
+            long seq = nextSeq++;
+            Path path = dir.resolve(PREFIX + owner + "-" + String.format("%06d", seq) + SUFFIX);
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            FileLock lock = channel.tryLock();
+            if (lock != null) {
+                current = new Segment(seq, path, channel);
+                segments.put(seq, current);
+                return;
+            }
+            // Another node's replay grabbed the brand-new file first and will delete it
+            channel.close();
+        }
+    }
+
+    private void delete(Segment segment) throws IOException {
+        segments.remove(segment.seq);
+        // Deleted while still locked so no other process can pick it up in between
+        Files.deleteIfExists(segment.path);
+        segment.channel.close();
+    }
+
+    private static final class Segment {
+        final long seq;
+        final Path path;
+        final FileChannel channel;
+        int appended;
+        int persisted;
+
+        Segment(long seq, Path path, FileChannel channel) {
+            this.seq = seq;
+            this.path = path;
+            this.channel = channel;
+        }
+    }
+}
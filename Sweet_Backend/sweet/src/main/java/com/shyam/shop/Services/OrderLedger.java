@@ -0,0 +1,276 @@
+package com.shyam.shop.Services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shyam.shop.Models.Order;
+import com.shyam.shop.Repository.OrderRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Write-behind ledger for the orders collection: orders are journaled, queued and inserted in batches by one
+// thread. When the queue is full, callers insert their own order inline.
+@Component
+public class OrderLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderLedger.class);
+    private static final long MAX_BACKOFF_MILLIS = 5_000;
+    private static final long SHUTDOWN_MILLIS = 10_000;
+
+    private final OrderRepository orderRepository;
+    private final BlockingQueue<Pending> queue;
+    private final int batchSize;
+    private final long flushNanos;
+    private final long offerTimeoutMillis;
+    // Null when shop.orders.journal-dir is empty: queued orders are then lost if the process dies
+    private final OrderJournal journal;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder persisted = new LongAdder();
+    private final LongAdder inline = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizes;
+
+    public OrderLedger(OrderRepository orderRepository,
+                       ObjectMapper objectMapper,
+                       MeterRegistry meterRegistry,
+                       @Value("${shop.orders.queue-capacity:10000}") int queueCapacity,
+                       @Value("${shop.orders.batch-size:500}") int batchSize,
+                       @Value("${shop.orders.flush-ms:200}") long flushMillis,
+                       @Value("${shop.orders.offer-timeout-ms:50}") long offerTimeoutMillis,
+                       @Value("${shop.orders.journal-dir:${user.home}/.sweet-shop/orders-journal}") String journalDir,
+                       @Value("${shop.orders.journal-segment-mb:16}") long segmentMegabytes) throws IOException {
+        this.orderRepository = orderRepository;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        if (journalDir.isBlank()) {
+            log.warn("Order journal disabled; orders still queued when the process dies will be lost");
+            this.journal = null;
+        } else {
+            this.journal = new OrderJournal(Path.of(journalDir), segmentMegabytes * 1024 * 1024, objectMapper);
+        }
+
+        Gauge.builder("shop.orders.queue", queue, BlockingQueue::size).register(meterRegistry);
+        FunctionCounter.builder("shop.orders.recorded", recorded, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("shop.orders.persisted", persisted, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("shop.orders.inline", inline, LongAdder::sum)
+                .description("Orders inserted by the caller because the queue stayed full").register(meterRegistry);
+        FunctionCounter.builder("shop.orders.replayed", replayed, LongAdder::sum)
+                .description("Orders recovered from the journal at startup").register(meterRegistry);
+        this.flushTimer = Timer.builder("shop.orders.flush").register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("shop.orders.batch").register(meterRegistry);
+
+        this.flusher = new Thread(this::run, "order-ledger");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    // Returns once the order is journaled and queued (or, under backpressure, stored); never throws, since the
+    // stock it records has already been taken
+    public void record(Order order) {
+        recorded.increment();
+        // Not journaled once stopping, since the journal is about to close; the order goes straight to Mongo
+        Pending pending = new Pending(order, running ? journal(order) : -1);
+        boolean queued = false;
+        if (running) {
+            try {
+                queued = queue.offer(pending, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!queued) {
+            inline.increment();
+            try {
+                persist(List.of(pending));
+            } catch (RuntimeException e) {
+                log.warn("Could not store order {}{}: {}", order.getId(),
+                        pending.segment < 0 ? "" : " (kept in journal)", e.getMessage());
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        return Map.of(
+                "queued", queue.size(),
+                "recorded", recorded.sum(),
+                "persisted", persisted.sum(),
+                "inline", inline.sum(),
+                "replayed", replayed.sum()
+        );
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        try {
+            flusher.join(SHUTDOWN_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("{} orders still queued at shutdown{}", queue.size(), journal == null ? " are lost" : ", left in the journal");
+        }
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                log.warn("Could not close order journal: {}", e.getMessage());
+            }
+        }
+    }
+
+    private long journal(Order order) {
+        if (journal == null) {
+            return -1;
+        }
+        try {
+            return journal.append(order);
+        } catch (IOException e) {
+            // Still queued; only crash safety is lost for this one
+            log.warn("Could not journal order {}: {}", order.getId(), e.getMessage());
+            return -1;
+        }
+    }
+
+    private void run() {
+        replayLeftovers();
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(flushNanos, TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    fill(batch, System.nanoTime() + flushNanos);
+                    flush(batch);
+                    batch.clear();
+                }
+                if (journal != null) {
+                    journal.sync();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                log.warn("Could not sync order journal: {}", e.getMessage());
+            }
+        }
+    }
+
+    // Keeps draining until the batch is full or the deadline set by its first order passes
+    private void fill(List<Pending> batch, long deadline) throws InterruptedException {
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long wait = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || wait <= 0 || !running) {
+                return;
+            }
+            Pending next = queue.poll(wait, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    // Retries until Mongo takes the batch; meanwhile the queue fills up and pushes back on callers.
+    // Gives up only at shutdown, leaving the orders in the journal.
+    private void flush(List<Pending> batch) throws InterruptedException {
+        long backoff = 100;
+        while (true) {
+            try {
+                long started = System.nanoTime();
+                persist(batch);
+                flushTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                batchSizes.record(batch.size());
+                return;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    log.warn("Dropping {} unsaved orders from memory at shutdown: {}", batch.size(), e.getMessage());
+                    return;
+                }
+                log.warn("Could not store {} orders, retrying in {} ms: {}", batch.size(), backoff, e.getMessage());
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    private void persist(List<Pending> batch) {
+        List<Order> orders = new ArrayList<>(batch.size());
+        Map<Long, Integer> perSegment = new HashMap<>();
+        for (Pending pending : batch) {
+            orders.add(pending.order);
+            if (pending.segment >= 0) {
+                perSegment.merge(pending.segment, 1, Integer::sum);
+            }
+        }
+        orderRepository.insertNew(orders);
+        persisted.add(orders.size());
+        perSegment.forEach((segment, count) -> {
+            try {
+                journal.persisted(segment, count);
+            } catch (IOException e) {
+                log.warn("Could not release order journal segment: {}", e.getMessage());
+            }
+        });
+    }
+
+    private void replayLeftovers() {
+        if (journal == null) {
+            return;
+        }
+        long backoff = 100;
+        while (running) {
+            try {
+                for (Path file : journal.leftovers()) {
+                    int count = journal.replay(file, batchSize, orders -> replayed.add(orderRepository.insertNew(orders)));
+                    if (count >= 0) {
+                        log.info("Replayed {} journaled orders from {}", count, file.getFileName());
+                    }
+                }
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not replay order journal, retrying in {} ms: {}", backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    private static final class Pending {
+        final Order order;
+        // Journal segment holding the order, or -1 when it was not journaled
+        final long segment;
+
+        Pending(Order order, long segment) {
+            this.order = order;
+            this.segment = segment;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.shyam.shop.Services;
+
+// Thrown when the BCrypt worker queue is full; callers answer 503 instead of queueing more work
+public class PasswordHashingBusyException extends RuntimeException {
+
+    public PasswordHashingBusyException() {
+        super("Too many concurrent login or registration requests, please retry");
+    }
+}
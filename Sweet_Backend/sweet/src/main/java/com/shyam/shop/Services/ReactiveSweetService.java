@@ -0,0 +1,110 @@
+package com.shyam.shop.Services;
+
+import com.shyam.shop.Models.Sweet;
+import com.shyam.shop.Models.SweetPage;
+import com.shyam.shop.Repository.ReactiveSweetRepository;
+import com.shyam.shop.Repository.SweetSearch;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Read side of SweetService on the reactive Mongo driver. Nothing here blocks a request thread:
+// a published catalog snapshot is served directly, anything else is an async query.
+@Service
+public class ReactiveSweetService {
+
+    @Autowired
+    private ReactiveSweetRepository reactiveSweetRepository;
+
+    @Autowired
+    private SweetCatalog catalog;
+
+    @Autowired
+    private CatalogRenderer catalogRenderer;
+
+    @Autowired
+    private CatalogIndex catalogIndex;
+
+    private final AtomicBoolean warming = new AtomicBoolean();
+    private final AtomicBoolean warmingIndex = new AtomicBoolean();
+
+    // Null while no snapshot is published; the caller then serves without validators
+    public CatalogSnapshot peekCatalog() {
+        return peekOrWarm();
+    }
+
+    public RenderedCatalog render(CatalogSnapshot snapshot) {
+        return catalogRenderer.render(snapshot);
+    }
+
+    public Mono<List<Sweet>> getAllSweets() {
+        CatalogSnapshot snapshot = peekOrWarm();
+        if (snapshot != null) {
+            return Mono.just(snapshot.getSweets());
+        }
+        return reactiveSweetRepository.findByActiveTrue().collectList();
+    }
+
+    public Mono<Sweet> getSweet(String id) {
+        CatalogSnapshot snapshot = peekOrWarm();
+        Sweet cached = snapshot == null ? null : snapshot.get(id);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return reactiveSweetRepository.findById(id)
+                .filter(sweet -> Boolean.TRUE.equals(sweet.isActive()));
+    }
+
+    // From the catalog columns once they are loaded; until then from Mongo, without facet counts
+    public Mono<SweetPage> searchSweets(
+            String name,
+            String category,
+            Double minPrice,
+            Double maxPrice,
+            String stock,
+            String sort,
+            String direction,
+            String cursor,
+            Integer limit,
+            boolean facets
+    ) {
+        SweetSearch search;
+        try {
+            search = SweetService.buildSearch(name, category, minPrice, maxPrice, stock, sort, direction, cursor, limit);
+        } catch (IllegalArgumentException e) {
+            return Mono.error(e);
+        }
+        if (catalogIndex.isReady()) {
+            return Mono.just(catalogIndex.search(search, facets));
+        }
+        warmIndex();
+        return reactiveSweetRepository.search(search)
+                .collectList()
+                .map(rows -> SweetService.toPage(rows, search));
+    }
+
+    // The snapshot rebuild is a blocking load, so it runs once on the elastic pool instead of the request path
+    private void warmIndex() {
+        if (warmingIndex.compareAndSet(false, true)) {
+            Mono.fromRunnable(catalogIndex::load)
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .doFinally(signal -> warmingIndex.set(false))
+                    .subscribe(null, e -> { });
+        }
+    }
+
+    private CatalogSnapshot peekOrWarm() {
+        CatalogSnapshot snapshot = catalog.peek();
+        if (snapshot == null && warming.compareAndSet(false, true)) {
+            Mono.fromRunnable(catalog::snapshot)
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .doFinally(signal -> warming.set(false))
+                    .subscribe(null, e -> { });
+        }
+        return snapshot;
+    }
+}
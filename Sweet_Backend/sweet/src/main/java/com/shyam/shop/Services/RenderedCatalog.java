@@ -0,0 +1,56 @@
+package com.shyam.shop.Services;
+
+// One catalog snapshot rendered to JSON once, in every content coding the list endpoint can send.
+// The arrays are never handed to anything that writes to them, so they are shared by all requests.
+public final class RenderedCatalog {
+
+    public enum Encoding {
+        IDENTITY(null, ""),
+        GZIP("gzip", "-gz"),
+        DEFLATE("deflate", "-df");
+
+        private final String token;
+        private final String eTagSuffix;
+
+        Encoding(String token, String eTagSuffix) {
+            this.token = token;
+            this.eTagSuffix = eTagSuffix;
+        }
+
+        // Content-Encoding header value, null for identity
+        public String getToken() {
+            return token;
+        }
+    }
+
+    private final CatalogSnapshot snapshot;
+    private final byte[] json;
+    private final byte[] gzip;
+    private final byte[] deflate;
+
+    RenderedCatalog(CatalogSnapshot snapshot, byte[] json, byte[] gzip, byte[] deflate) {
+        this.snapshot = snapshot;
+        this.json = json;
+        this.gzip = gzip;
+        this.deflate = deflate;
+    }
+
+    public CatalogSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public byte[] body(Encoding encoding) {
+        return switch (encoding) {
+            case GZIP -> gzip;
+            case DEFLATE -> deflate;
+            case IDENTITY -> json;
+        };
+    }
+
+    // Each coding is a different representation, so it gets its own strong ETag.
+    // Static so a conditional request can be answered before anything is rendered.
+    public static String eTag(CatalogSnapshot snapshot, Encoding encoding) {
+        String base = snapshot.getETag();
+        return base.substring(0, base.length() - 1) + encoding.eTagSuffix + "\"";
+    }
+}
@@ -0,0 +1,62 @@
+package com.shyam.shop.Services;
+
+import com.shyam.shop.Models.Sweet;
+import com.shyam.shop.Repository.SweetRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Returns the stock of checkout reservations that were neither committed nor rolled back within ttl-seconds,
+// which only happens when the process holding them died in between
+@Component
+public class ReservationSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationSweeper.class);
+
+    private final SweetRepository sweetRepository;
+    private final ChangeEventBus events;
+    private final long ttlSeconds;
+    private final ScheduledExecutorService scheduler;
+
+    public ReservationSweeper(SweetRepository sweetRepository,
+                              ChangeEventBus events,
+                              @Value("${shop.checkout.reservation-ttl-seconds:300}") long ttlSeconds,
+                              @Value("${shop.checkout.sweep-seconds:60}") long sweepSeconds) {
+        this.sweetRepository = sweetRepository;
+        this.events = events;
+        this.ttlSeconds = ttlSeconds;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reservation-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::sweep, sweepSeconds, sweepSeconds, TimeUnit.SECONDS);
+    }
+
+    public int sweep() {
+        try {
+            List<Sweet> released = sweetRepository.releaseExpiredReservations(LocalDateTime.now().minusSeconds(ttlSeconds));
+            released.forEach(sweet -> events.publish(ChangeEvent.sweet(sweet)));
+            if (!released.isEmpty()) {
+                log.warn("Released {} expired checkout reservations", released.size());
+            }
+            return released.size();
+        } catch (RuntimeException e) {
+            log.warn("Reservation sweep failed", e);
+            return 0;
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+}
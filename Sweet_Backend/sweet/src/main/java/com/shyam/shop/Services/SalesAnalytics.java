@@ -0,0 +1,445 @@
+package com.shyam.shop.Services;
+
+import com.shyam.shop.Models.SalesCheckpoint;
+import com.shyam.shop.Models.SalesFigures;
+import com.shyam.shop.Models.Sweet;
+import com.shyam.shop.Models.TopSeller;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+// Live sales figures for the admin dashboard in minute, hour and day buckets, checkpointed to Mongo per node
+// (shop.analytics.node) and merged with the other nodes' checkpoints in the report.
+@Component
+public class SalesAnalytics {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesAnalytics.class);
+    private static final String UNCATEGORIZED = "uncategorized";
+    private static final String TOP = "top";
+
+    public enum Granularity {
+        MINUTE(60_000L, 120),
+        HOUR(3_600_000L, 72),
+        DAY(86_400_000L, 90);
+
+        private final long millis;
+        private final int retained;
+
+        Granularity(long millis, int retained) {
+            this.millis = millis;
+            this.retained = retained;
+        }
+
+        public int getRetained() {
+            return retained;
+        }
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final String node;
+    // Latest checkpoints of every other node, refreshed after each of our own
+    private volatile List<SalesCheckpoint> peers = List.of();
+    private final Map<Granularity, Ring> rings = new HashMap<>();
+    private final SpaceSaving topSellers;
+    private volatile boolean topDirty;
+    // Completes once this node's checkpoints were read back, whether or not that worked
+    private final CompletableFuture<Void> restored = new CompletableFuture<>();
+    private final ScheduledExecutorService scheduler;
+    private final Timer checkpointTimer;
+
+    public SalesAnalytics(MongoTemplate mongoTemplate,
+                          MeterRegistry meterRegistry,
+                          @Value("${shop.analytics.node:}") String node,
+                          @Value("${shop.analytics.top-capacity:200}") int topCapacity,
+                          @Value("${shop.analytics.checkpoint-seconds:60}") long checkpointSeconds) {
+        this.mongoTemplate = mongoTemplate;
+        this.node = node == null || node.isBlank() ? defaultNode() : node;
+        for (Granularity granularity : Granularity.values()) {
+            rings.put(granularity, new Ring(granularity));
+        }
+        this.topSellers = new SpaceSaving(topCapacity);
+        this.checkpointTimer = Timer.builder("shop.analytics.checkpoint").register(meterRegistry);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sales-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.execute(this::restore);
+        scheduler.scheduleWithFixedDelay(this::checkpoint, checkpointSeconds, checkpointSeconds, TimeUnit.SECONDS);
+    }
+
+    public void recordSale(Sweet sweet, int quantity) {
+        double revenue = sweet.getPrice() == null ? 0 : sweet.getPrice() * quantity;
+        record(sweet, quantity, revenue, 0);
+        topSellers.offer(sweet.getId(), sweet.getName(), quantity);
+        topDirty = true;
+    }
+
+    public void recordRestock(Sweet sweet, int quantity) {
+        record(sweet, 0, 0, quantity);
+    }
+
+    public List<TopSeller> topSellers(int limit) {
+        return topSellers.top(limit);
+    }
+
+    public CompletableFuture<Void> restored() {
+        return restored;
+    }
+
+    // The last `buckets` buckets of the given size up to now, over all nodes: a per-bucket series, the best
+    // sellers and category totals over that window, and the all-time top sellers
+    public Map<String, Object> report(Granularity granularity, int buckets, int top) {
+        long now = System.currentTimeMillis();
+        int count = Math.max(1, Math.min(buckets, granularity.retained));
+        long from = start(granularity, now) - (count - 1) * granularity.millis;
+
+        TreeMap<Long, Map<String, SalesFigures>> categoriesByStart = new TreeMap<>();
+        Map<String, SalesFigures> sweets = new HashMap<>();
+        for (Bucket bucket : rings.get(granularity).window(now, count)) {
+            Map<String, SalesFigures> bucketCategories = categoriesByStart.computeIfAbsent(bucket.start, start -> new HashMap<>());
+            bucket.categories.values().forEach(tally -> merge(bucketCategories, tally.figures()));
+            bucket.sweets.values().forEach(tally -> merge(sweets, tally.figures()));
+        }
+        List<SalesCheckpoint> remote = peers;
+        Set<String> nodes = new HashSet<>(List.of(node));
+        List<TopSeller> allTime = new ArrayList<>(topSellers.top(Integer.MAX_VALUE));
+        for (SalesCheckpoint peer : remote) {
+            nodes.add(peer.getNode());
+            if (TOP.equals(peer.getGranularity())) {
+                if (peer.getTop() != null) {
+                    allTime.addAll(peer.getTop());
+                }
+            } else if (granularity.name().equals(peer.getGranularity()) && peer.getStart() >= from && peer.getStart() <= now) {
+                Map<String, SalesFigures> bucketCategories = categoriesByStart.computeIfAbsent(peer.getStart(), start -> new HashMap<>());
+                mergeAll(bucketCategories, peer.getCategories());
+                mergeAll(sweets, peer.getSweets());
+            }
+        }
+
+        Map<String, SalesFigures> categories = new HashMap<>();
+        List<Map<String, Object>> series = new ArrayList<>(categoriesByStart.size());
+        for (Map.Entry<Long, Map<String, SalesFigures>> bucket : categoriesByStart.entrySet()) {
+            long sold = 0;
+            double revenue = 0;
+            long restocked = 0;
+            for (SalesFigures figures : bucket.getValue().values()) {
+                sold += figures.getSold();
+                revenue += figures.getRevenue();
+                restocked += figures.getRestocked();
+                merge(categories, figures);
+            }
+            series.add(Map.of("start", Instant.ofEpochMilli(bucket.getKey()).toString(),
+                    "sold", sold, "revenue", revenue, "restocked", restocked));
+        }
+
+        List<SalesFigures> byCategory = new ArrayList<>(categories.values());
+        byCategory.sort(Comparator.comparingDouble(SalesFigures::getRevenue).reversed());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("granularity", granularity.name().toLowerCase());
+        report.put("from", Instant.ofEpochMilli(from).toString());
+        report.put("to", Instant.ofEpochMilli(now).toString());
+        report.put("nodes", nodes.size());
+        report.put("series", series);
+        report.put("topSweets", topBySold(sweets.values(), top));
+        report.put("categories", byCategory);
+        report.put("allTimeTop", combineTop(allTime, top));
+        return report;
+    }
+
+    // The final checkpoint runs on the scheduler thread so an unreachable Mongo cannot hold up shutdown
+    @PreDestroy
+    public void stop() {
+        scheduler.execute(this::checkpoint);
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void record(Sweet sweet, long sold, double revenue, long restocked) {
+        long now = System.currentTimeMillis();
+        String category = sweet.getCategory() == null || sweet.getCategory().isBlank() ? UNCATEGORIZED : sweet.getCategory();
+        for (Ring ring : rings.values()) {
+            Bucket bucket = ring.current(now);
+            if (bucket == null) {
+                // The clock stepped back past a bucket that has already been reused
+                continue;
+            }
+            bucket.sweets.computeIfAbsent(sweet.getId(), id -> new Tally(id, sweet.getName())).add(sold, revenue, restocked);
+            bucket.categories.computeIfAbsent(category, key -> new Tally(key, null)).add(sold, revenue, restocked);
+            bucket.dirty = true;
+        }
+    }
+
+    // Selection with a bounded min-heap instead of sorting every sweet in the window
+    private static List<SalesFigures> topBySold(Iterable<SalesFigures> figures, int limit) {
+        PriorityQueue<SalesFigures> heap = new PriorityQueue<>(Comparator.comparingLong(SalesFigures::getSold));
+        for (SalesFigures candidate : figures) {
+            if (candidate.getSold() == 0) {
+                continue;
+            }
+            heap.offer(candidate);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<SalesFigures> top = new ArrayList<>(heap);
+        top.sort(Comparator.comparingLong(SalesFigures::getSold).reversed());
+        return top;
+    }
+
+    private static void merge(Map<String, SalesFigures> into, SalesFigures figures) {
+        into.merge(figures.getKey(), figures, (a, b) -> new SalesFigures(a.getKey(), a.getName() != null ? a.getName() : b.getName(),
+                a.getSold() + b.getSold(), a.getRevenue() + b.getRevenue(), a.getRestocked() + b.getRestocked()));
+    }
+
+    private static void mergeAll(Map<String, SalesFigures> into, List<SalesFigures> figures) {
+        if (figures != null) {
+            figures.forEach(saved -> merge(into, saved));
+        }
+    }
+
+    // Sums each sweet's counts (and overestimates) over the nodes' rankings
+    private static List<TopSeller> combineTop(List<TopSeller> sellers, int limit) {
+        Map<String, TopSeller> bySweet = new HashMap<>();
+        for (TopSeller seller : sellers) {
+            bySweet.merge(seller.getSweetId(), seller, (a, b) -> new TopSeller(a.getSweetId(),
+                    a.getName() != null ? a.getName() : b.getName(),
+                    a.getSold() + b.getSold(),
+                    (a.getOverestimate() == null ? 0 : a.getOverestimate()) + (b.getOverestimate() == null ? 0 : b.getOverestimate())));
+        }
+        List<TopSeller> top = new ArrayList<>(bySweet.values());
+        top.sort(Comparator.comparingLong(TopSeller::getSold).reversed());
+        return top.size() > limit ? new ArrayList<>(top.subList(0, limit)) : top;
+    }
+
+    private static String defaultNode() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return UUID.randomUUID().toString();
+        }
+    }
+
+    private static long start(Granularity granularity, long millis) {
+        return millis - Math.floorMod(millis, granularity.millis);
+    }
+
+    private void checkpoint() {
+        long started = System.nanoTime();
+        int saved = 0;
+        try {
+            for (Ring ring : rings.values()) {
+                for (Bucket bucket : ring.dirty()) {
+                    // Cleared before reading, so a sale racing with this copy marks it dirty again for next time
+                    bucket.dirty = false;
+                    mongoTemplate.save(new SalesCheckpoint(id(ring.granularity.name(), bucket.start), node,
+                            ring.granularity.name(), bucket.start, figures(bucket.sweets), figures(bucket.categories), null,
+                            new Date(bucket.start + (long) ring.granularity.retained * ring.granularity.millis)));
+                    saved++;
+                }
+            }
+            if (topDirty) {
+                topDirty = false;
+                mongoTemplate.save(new SalesCheckpoint(id(TOP, 0), node, TOP, 0L, null, null, topSellers.top(Integer.MAX_VALUE), null));
+                saved++;
+            }
+        } catch (RuntimeException e) {
+            // Marked dirty again so the next run retries everything
+            rings.values().forEach(ring -> ring.window(System.currentTimeMillis(), ring.granularity.retained)
+                    .forEach(bucket -> bucket.dirty = true));
+            topDirty = true;
+            log.warn("Could not checkpoint sales analytics: {}", e.getMessage());
+        }
+        if (saved > 0) {
+            checkpointTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        refreshPeers();
+    }
+
+    private void refreshPeers() {
+        try {
+            peers = mongoTemplate.find(new Query(Criteria.where("node").ne(node)), SalesCheckpoint.class);
+        } catch (RuntimeException e) {
+            log.warn("Could not read other nodes' sales analytics: {}", e.getMessage());
+        }
+    }
+
+    private void restore() {
+        try {
+            long now = System.currentTimeMillis();
+            List<SalesCheckpoint> checkpoints = mongoTemplate.find(new Query(Criteria.where("node").is(node)), SalesCheckpoint.class);
+            int restored = 0;
+            for (SalesCheckpoint checkpoint : checkpoints) {
+                if (TOP.equals(checkpoint.getGranularity())) {
+                    if (checkpoint.getTop() != null) {
+                        topSellers.restore(checkpoint.getTop());
+                    }
+                    continue;
+                }
+                Granularity granularity = Granularity.valueOf(checkpoint.getGranularity());
+                Bucket bucket = rings.get(granularity).at(checkpoint.getStart(), now);
+                if (bucket == null) {
+                    continue;
+                }
+                restoreInto(bucket.sweets, checkpoint.getSweets());
+                restoreInto(bucket.categories, checkpoint.getCategories());
+                restored++;
+            }
+            log.info("Restored {} sales analytics buckets for node {}", restored, node);
+        } catch (RuntimeException e) {
+            log.warn("Could not restore sales analytics: {}", e.getMessage());
+        }
+        restored.complete(null);
+        refreshPeers();
+    }
+
+    private static void restoreInto(Map<String, Tally> tallies, List<SalesFigures> figures) {
+        if (figures == null) {
+            return;
+        }
+        for (SalesFigures saved : figures) {
+            tallies.computeIfAbsent(saved.getKey(), key -> new Tally(key, saved.getName()))
+                    .add(saved.getSold(), saved.getRevenue(), saved.getRestocked());
+        }
+    }
+
+    private static List<SalesFigures> figures(Map<String, Tally> tallies) {
+        List<SalesFigures> figures = new ArrayList<>(tallies.size());
+        tallies.values().forEach(tally -> figures.add(tally.figures()));
+        return figures;
+    }
+
+    private String id(String granularity, long start) {
+        return node + ":" + granularity + ":" + start;
+    }
+
+    // Fixed number of buckets reused round-robin: slot = bucket index mod size. A bucket whose time has passed
+    // is replaced by a fresh one the first time its slot is needed again.
+    private static final class Ring {
+        final Granularity granularity;
+        final AtomicReferenceArray<Bucket> slots;
+
+        Ring(Granularity granularity) {
+            this.granularity = granularity;
+            this.slots = new AtomicReferenceArray<>(granularity.retained);
+        }
+
+        Bucket current(long now) {
+            return at(start(granularity, now), now);
+        }
+
+        // Null when start is outside the retained window
+        Bucket at(long start, long now) {
+            long index = start / granularity.millis;
+            long currentIndex = now / granularity.millis;
+            if (index > currentIndex || index <= currentIndex - granularity.retained) {
+                return null;
+            }
+            int slot = (int) (index % granularity.retained);
+            while (true) {
+                Bucket bucket = slots.get(slot);
+                if (bucket != null && bucket.start >= start) {
+                    return bucket.start == start ? bucket : null;
+                }
+                Bucket fresh = new Bucket(start);
+                if (slots.compareAndSet(slot, bucket, fresh)) {
+                    return fresh;
+                }
+            }
+        }
+
+        // Oldest first; only buckets that exist, so quiet periods simply show no entry
+        List<Bucket> window(long now, int count) {
+            long currentIndex = now / granularity.millis;
+            List<Bucket> buckets = new ArrayList<>(count);
+            for (long index = currentIndex - count + 1; index <= currentIndex; index++) {
+                Bucket bucket = slots.get((int) (index % granularity.retained));
+                if (bucket != null && bucket.start == index * granularity.millis) {
+                    buckets.add(bucket);
+                }
+            }
+            return buckets;
+        }
+
+        List<Bucket> dirty() {
+            List<Bucket> dirty = new ArrayList<>();
+            for (int i = 0; i < slots.length(); i++) {
+                Bucket bucket = slots.get(i);
+                if (bucket != null && bucket.dirty) {
+                    dirty.add(bucket);
+                }
+            }
+            return dirty;
+        }
+    }
+
+    private static final class Bucket {
+        final long start;
+        final Map<String, Tally> sweets = new ConcurrentHashMap<>();
+        final Map<String, Tally> categories = new ConcurrentHashMap<>();
+        volatile boolean dirty;
+
+        Bucket(long start) {
+            this.start = start;
+        }
+    }
+
+    private static final class Tally {
+        final String key;
+        final String name;
+        final LongAdder sold = new LongAdder();
+        final DoubleAdder revenue = new DoubleAdder();
+        final LongAdder restocked = new LongAdder();
+
+        Tally(String key, String name) {
+            this.key = key;
+            this.name = name;
+        }
+
+        void add(long sold, double revenue, long restocked) {
+            this.sold.add(sold);
+            this.revenue.add(revenue);
+            this.restocked.add(restocked);
+        }
+
+        SalesFigures figures() {
+            return new SalesFigures(key, name, sold.sum(), revenue.sum(), restocked.sum());
+        }
+    }
+}
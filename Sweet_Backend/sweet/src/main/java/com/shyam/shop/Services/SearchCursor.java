@@ -0,0 +1,80 @@
+package com.shyam.shop.Services;
+
+import com.shyam.shop.Models.Sweet;
+import com.shyam.shop.Repository.SweetSearch.SortKey;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// Opaque keyset position: the sort key, direction and (sort value, id) of the last sweet on a page
+public final class SearchCursor {
+
+    private final SortKey sortKey;
+    private final boolean descending;
+    private final Object value;
+    private final String id;
+
+    private SearchCursor(SortKey sortKey, boolean descending, Object value, String id) {
+        this.sortKey = sortKey;
+        this.descending = descending;
+        this.value = value;
+        this.id = id;
+    }
+
+    public static String encode(SortKey sortKey, boolean descending, Sweet last) {
+        Object value = sortKey.valueOf(last);
+        String raw = sortKey.name() + "|" + (descending ? "d" : "a") + "|" + last.getId() + "|" + encodeValue(value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SearchCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 4);
+            return new SearchCursor(SortKey.valueOf(parts[0]), "d".equals(parts[1]), decodeValue(parts[3]), parts[2]);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public SortKey getSortKey() {
+        return sortKey;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    private static String encodeValue(Object value) {
+        if (value == null) {
+            return "n:";
+        }
+        if (value instanceof Double) {
+            return "d:" + value;
+        }
+        if (value instanceof LocalDateTime) {
+            return "t:" + value;
+        }
+        return "s:" + value;
+    }
+
+    private static Object decodeValue(String encoded) {
+        String body = encoded.substring(2);
+        return switch (encoded.charAt(0)) {
+            case 'n' -> null;
+            case 'd' -> Double.valueOf(body);
+            case 't' -> LocalDateTime.parse(body);
+            case 's' -> body;
+            default -> throw new IllegalArgumentException("Invalid cursor");
+        };
+    }
+}
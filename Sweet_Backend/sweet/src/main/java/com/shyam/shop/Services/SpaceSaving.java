@@ -0,0 +1,77 @@
+package com.shyam.shop.Services;
+
+import com.shyam.shop.Models.TopSeller;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Space-Saving heavy hitters: at most capacity counters; an untracked key takes over the smallest one and
+// inherits its count as overestimate.
+final class SpaceSaving {
+
+    private final int capacity;
+    private final Map<String, Counter> counters = new HashMap<>();
+
+    SpaceSaving(int capacity) {
+        this.capacity = capacity;
+    }
+
+    synchronized void offer(String key, String name, long units) {
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            if (counters.size() < capacity) {
+                counter = new Counter(key, 0);
+            } else {
+                // Linear scan: only paid by untracked keys once the table is full, and capacity is small
+                Counter smallest = null;
+                for (Counter candidate : counters.values()) {
+                    if (smallest == null || candidate.count < smallest.count) {
+                        smallest = candidate;
+                    }
+                }
+                counters.remove(smallest.key);
+                counter = new Counter(key, smallest.count);
+            }
+            counters.put(key, counter);
+        }
+        counter.count += units;
+        if (name != null) {
+            counter.name = name;
+        }
+    }
+
+    synchronized List<TopSeller> top(int limit) {
+        List<TopSeller> top = new ArrayList<>(counters.size());
+        for (Counter counter : counters.values()) {
+            top.add(new TopSeller(counter.key, counter.name, counter.count, counter.overestimate));
+        }
+        top.sort(Comparator.comparingLong(TopSeller::getSold).reversed());
+        return top.size() > limit ? new ArrayList<>(top.subList(0, limit)) : top;
+    }
+
+    // Restores a checkpoint on top of whatever was counted since startup
+    synchronized void restore(List<TopSeller> sellers) {
+        for (TopSeller seller : sellers) {
+            offer(seller.getSweetId(), seller.getName(), seller.getSold());
+            Counter counter = counters.get(seller.getSweetId());
+            counter.overestimate += seller.getOverestimate() == null ? 0 : seller.getOverestimate();
+        }
+    }
+
+    private static final class Counter {
+        final String key;
+        String name;
+        long count;
+        long overestimate;
+
+        // floor is the count of the counter this one replaced, all of which may belong to other keys
+        Counter(String key, long floor) {
+            this.key = key;
+            this.count = floor;
+            this.overestimate = floor;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.shyam.shop.Services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shyam.shop.Models.StockLevel;
+import com.shyam.shop.Models.Sweet;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Live stock levels for GET /api/sweets/stream: changes are coalesced per sweet, flushed once per window and
+// queued to each subscriber; a subscriber whose queue fills up is dropped.
+@Component
+public class StockStream {
+
+    private static final Logger log = LoggerFactory.getLogger(StockStream.class);
+    private static final long RECONNECT_MILLIS = 3000;
+
+    private final ObjectMapper objectMapper;
+    private final SweetCatalog catalog;
+    private final long timeoutMillis;
+    private final int maxSubscribers;
+    private final int maxQueued;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Latest level per sweet since the last flush; later changes overwrite earlier ones
+    private final ConcurrentHashMap<String, StockLevel> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean resetPending = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService senders;
+
+    private final LongAdder changes = new LongAdder();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public StockStream(ObjectMapper objectMapper,
+                       SweetCatalog catalog,
+                       MeterRegistry meterRegistry,
+                       @Value("${shop.stream.coalesce-ms:250}") long coalesceMillis,
+                       @Value("${shop.stream.heartbeat-seconds:15}") long heartbeatSeconds,
+                       @Value("${shop.stream.timeout-minutes:30}") long timeoutMinutes,
+                       @Value("${shop.stream.max-subscribers:20000}") int maxSubscribers,
+                       @Value("${shop.stream.max-queued:32}") int maxQueued,
+                       @Value("${shop.stream.send-threads:4}") int sendThreads) {
+        this.objectMapper = objectMapper;
+        this.catalog = catalog;
+        this.timeoutMillis = TimeUnit.MINUTES.toMillis(timeoutMinutes);
+        this.maxSubscribers = maxSubscribers;
+        this.maxQueued = maxQueued;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger sendersCreated = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(sendThreads, runnable -> {
+            Thread thread = new Thread(runnable, "stock-stream-send-" + sendersCreated.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, coalesceMillis, coalesceMillis, TimeUnit.MILLISECONDS);
+        // Keeps proxies from closing idle connections and finds clients that went away without a FIN
+        scheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+
+        Gauge.builder("shop.stream.subscribers", subscribers, Set::size).register(meterRegistry);
+        FunctionCounter.builder("shop.stream.changes", changes, LongAdder::sum)
+                .description("Sweet changes received, before coalescing").register(meterRegistry);
+        FunctionCounter.builder("shop.stream.published", published, LongAdder::sum)
+                .description("Stock levels sent, after coalescing").register(meterRegistry);
+        FunctionCounter.builder("shop.stream.dropped", dropped, LongAdder::sum)
+                .description("Subscribers dropped because a write to them failed or they fell behind").register(meterRegistry);
+    }
+
+    @Autowired
+    void subscribe(ChangeEventBus events) {
+        events.subscribe(ChangeEvent.Kind.SWEET, this::onChange);
+    }
+
+    // Null when the node already holds its maximum number of subscribers
+    public SseEmitter open(boolean withSnapshot) {
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, maxQueued);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        // Also gets the response headers out before the first change; EventSource clients honour the retry delay
+        enqueue(subscriber, SseEmitter.event().reconnectTime(RECONNECT_MILLIS).build());
+        // Registered before the snapshot is read so no change can fall in between; a client may then see an
+        // update it already has, which the revision tells it to ignore
+        subscribers.add(subscriber);
+        if (withSnapshot) {
+            List<StockLevel> levels = catalog.snapshot().getSweets().stream().map(StockLevel::of).toList();
+            enqueue(subscriber, event("snapshot", levels));
+        }
+        return emitter;
+    }
+
+    private void onChange(ChangeEvent event) {
+        changes.increment();
+        if (event.isReset()) {
+            resetPending.set(true);
+        } else if (event.getDocument() instanceof Sweet sweet) {
+            pending.merge(sweet.getId(), StockLevel.of(sweet), StockStream::newer);
+        } else {
+            pending.put(event.getId(), new StockLevel(event.getId(), null, null, false, null));
+        }
+    }
+
+    private void flush() {
+        try {
+            if (subscribers.isEmpty()) {
+                pending.clear();
+                resetPending.set(false);
+                return;
+            }
+            if (resetPending.getAndSet(false)) {
+                // Too much changed at once (e.g. an import): tell clients to reload instead of sending every row
+                pending.clear();
+                broadcast(event("reset", List.of()));
+                return;
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<StockLevel> levels = new ArrayList<>(pending.size());
+            for (String id : pending.keySet()) {
+                StockLevel level = pending.remove(id);
+                if (level != null) {
+                    levels.add(level);
+                }
+            }
+            published.add(levels.size());
+            broadcast(event("stock", levels));
+        } catch (RuntimeException e) {
+            log.warn("Stock stream flush failed: {}", e.getMessage());
+        }
+    }
+
+    private void heartbeat() {
+        if (!subscribers.isEmpty()) {
+            broadcast(SseEmitter.event().comment("").build());
+        }
+    }
+
+    private void broadcast(Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+        for (Subscriber subscriber : subscribers) {
+            enqueue(subscriber, frame);
+        }
+    }
+
+    private void enqueue(Subscriber subscriber, Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+        if (!subscriber.queue.offer(frame)) {
+            // Fell behind: the sender completes it once any write in progress returns
+            if (subscribers.remove(subscriber)) {
+                dropped.increment();
+            }
+            subscriber.closed = true;
+            subscriber.queue.clear();
+        }
+        schedule(subscriber);
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    // At most one drain per subscriber runs at a time, so its frames go out in order
+    private void drain(Subscriber subscriber) {
+        do {
+            Set<ResponseBodyEmitter.DataWithMediaType> frame;
+            while (!subscriber.closed && (frame = subscriber.queue.poll()) != null) {
+                try {
+                    subscriber.emitter.send(frame);
+                } catch (IOException | IllegalStateException e) {
+                    if (subscribers.remove(subscriber)) {
+                        dropped.increment();
+                    }
+                    subscriber.emitter.completeWithError(e);
+                    return;
+                }
+            }
+            if (subscriber.closed) {
+                subscriber.emitter.complete();
+                return;
+            }
+            subscriber.scheduled.set(false);
+        } while (!subscriber.queue.isEmpty() && subscriber.scheduled.compareAndSet(false, true));
+    }
+
+    // The payload is serialized here once; every subscriber gets the same pre-built frame
+    private Set<ResponseBodyEmitter.DataWithMediaType> event(String name, List<StockLevel> levels) {
+        try {
+            return SseEmitter.event()
+                    .name(name)
+                    .data(objectMapper.writeValueAsString(levels), MediaType.TEXT_PLAIN)
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static StockLevel newer(StockLevel current, StockLevel incoming) {
+        if (current.getRevision() != null && incoming.getRevision() != null
+                && incoming.getRevision() < current.getRevision()) {
+            return current;
+        }
+        return incoming;
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final ArrayBlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> queue;
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        volatile boolean closed;
+
+        Subscriber(SseEmitter emitter, int maxQueued) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(maxQueued);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.shyam.shop.Services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Writes documents to the response as the cursor yields them, so heap use is bounded by one cursor
+// batch plus the generator buffer instead of the whole result list.
+public final class StreamingExport {
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    private static final int FLUSH_EVERY = 256;
+
+    private StreamingExport() {
+    }
+
+    public static boolean isNdjson(String format) {
+        return format == null || "ndjson".equalsIgnoreCase(format);
+    }
+
+    public static <T> long write(Stream<T> items, OutputStream out, ObjectMapper mapper, boolean ndjson) throws IOException {
+        ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long written = 0;
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            if (!ndjson) {
+                generator.writeStartArray();
+            }
+            Iterator<T> iterator = items.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                if (ndjson) {
+                    generator.writeRaw('\n');
+                }
+                // The first document goes out immediately; after that flush in chunks
+                if (++written == 1 || written % FLUSH_EVERY == 0) {
+                    generator.flush();
+                }
+            }
+            if (!ndjson) {
+                generator.writeEndArray();
+            }
+        }
+        return written;
+    }
+}
@@ -0,0 +1,339 @@
+package com.shyam.shop.Services;
+
+import com.shyam.shop.Models.Suggestion;
+import com.shyam.shop.Models.Sweet;
+import com.shyam.shop.Models.TopSeller;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+// Typeahead over active sweets: each word and whole phrase of a name or category is a "term\0id" key, so the
+// completions of a prefix are one range of a sorted map.
+@Component
+public class SuggestionIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(SuggestionIndex.class);
+    private static final char SEPARATOR = '\u0000';
+    private static final Pattern WORDS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    // Prefixes this short match a large part of the index, so their ranking is cached this deep for a short while
+    private static final int SHORT_PREFIX = 2;
+    private static final int SHORT_PREFIX_DEPTH = 50;
+
+    public enum Rank {
+        POPULARITY,
+        STOCK;
+
+        public static Rank from(String value) {
+            if (value == null || value.isEmpty()) {
+                return POPULARITY;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown rank: " + value);
+            }
+        }
+    }
+
+    private final SweetCatalog catalog;
+    private final SalesAnalytics salesAnalytics;
+    private final long shortPrefixTtlMillis;
+
+    private final ConcurrentSkipListMap<String, Entry> terms = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<String, Entry> byId = new ConcurrentHashMap<>();
+    // Removed ids and the state that removed them; guarded by this
+    private final Tombstones removed;
+    private final ConcurrentHashMap<String, LongAdder> sold = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, RankedPrefix> shortPrefixes = new ConcurrentHashMap<>();
+    private volatile boolean built;
+    // Set before a build reads the top sellers, so no sale falls between that read and the index going live
+    private volatile boolean counting;
+
+    private final Timer lookups;
+
+    public SuggestionIndex(SweetCatalog catalog,
+                           SalesAnalytics salesAnalytics,
+                           ChangeEventBus events,
+                           MeterRegistry meterRegistry,
+                           @Value("${shop.suggest.short-prefix-ttl-ms:1000}") long shortPrefixTtlMillis,
+                           @Value("${shop.events.tombstone-ttl-seconds:600}") long tombstoneTtlSeconds) {
+        this.catalog = catalog;
+        this.salesAnalytics = salesAnalytics;
+        this.shortPrefixTtlMillis = shortPrefixTtlMillis;
+        this.removed = new Tombstones(TimeUnit.SECONDS.toMillis(tombstoneTtlSeconds));
+        events.subscribe(ChangeEvent.Kind.SWEET, this::onChange);
+        // A build before the restore seeded from this node's sales since startup only
+        salesAnalytics.restored().thenRun(this::invalidate);
+
+        this.lookups = Timer.builder("shop.suggest").register(meterRegistry);
+        Gauge.builder("shop.suggest.terms", terms, Map::size).register(meterRegistry);
+    }
+
+    // Ranked best first over every match; one- and two-letter prefixes may be up to short-prefix-ttl-ms old
+    public List<Suggestion> suggest(String query, Rank rank, int limit) {
+        String prefix = Sweet.normalize(query);
+        if (prefix == null || prefix.isEmpty()) {
+            return List.of();
+        }
+        if (!built) {
+            build();
+        }
+        long started = System.nanoTime();
+        List<Suggestion> suggestions;
+        if (prefix.length() <= SHORT_PREFIX && limit <= SHORT_PREFIX_DEPTH) {
+            suggestions = shortPrefixTop(prefix, rank);
+            if (suggestions.size() > limit) {
+                suggestions = suggestions.subList(0, limit);
+            }
+        } else {
+            suggestions = rank(prefix, rank == Rank.STOCK, limit);
+        }
+        lookups.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        return suggestions;
+    }
+
+    private List<Suggestion> shortPrefixTop(String prefix, Rank rank) {
+        String key = rank.name() + SEPARATOR + prefix;
+        long now = System.currentTimeMillis();
+        RankedPrefix ranked = shortPrefixes.get(key);
+        if (ranked == null || now - ranked.rankedAt > shortPrefixTtlMillis) {
+            ranked = new RankedPrefix(rank(prefix, rank == Rank.STOCK, SHORT_PREFIX_DEPTH), now);
+            shortPrefixes.put(key, ranked);
+        }
+        return ranked.suggestions;
+    }
+
+    private List<Suggestion> rank(String prefix, boolean byStock, int limit) {
+        // The best `limit` so far, best first. Most candidates lose to the last one and cost one comparison.
+        Entry[] top = new Entry[limit];
+        long[] firstKeys = new long[limit];
+        long[] secondKeys = new long[limit];
+        int size = 0;
+        for (Entry entry : terms.subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+            long sold = entry.sold.sum();
+            long first = byStock ? entry.stock : sold;
+            long second = byStock ? sold : entry.stock;
+            if (size == limit && !ranksAbove(first, second, entry, firstKeys[size - 1], secondKeys[size - 1], top[size - 1])) {
+                continue;
+            }
+            // A sweet reached through several of its terms is only counted once
+            if (contains(top, size, entry)) {
+                continue;
+            }
+            int at = size < limit ? size++ : limit - 1;
+            while (at > 0 && ranksAbove(first, second, entry, firstKeys[at - 1], secondKeys[at - 1], top[at - 1])) {
+                top[at] = top[at - 1];
+                firstKeys[at] = firstKeys[at - 1];
+                secondKeys[at] = secondKeys[at - 1];
+                at--;
+            }
+            top[at] = entry;
+            firstKeys[at] = first;
+            secondKeys[at] = second;
+        }
+        List<Suggestion> suggestions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            suggestions.add(top[i].toSuggestion(byStock ? secondKeys[i] : firstKeys[i]));
+        }
+        return suggestions;
+    }
+
+    public void recordSale(String sweetId, int quantity) {
+        // Before the build, the all-time top sellers it seeds from already include this sale. During one, a sale
+        // may be counted twice, which beats dropping it.
+        if (counting) {
+            soldOf(sweetId).add(quantity);
+        }
+    }
+
+    // Events before the first build are already in the catalog snapshot it reads, since the catalog subscribed first
+    private synchronized void onChange(ChangeEvent event) {
+        if (event.isReset()) {
+            invalidate();
+        } else if (!built) {
+            return;
+        } else if (event.getDocument() instanceof Sweet sweet) {
+            apply(sweet);
+        } else {
+            apply(CatalogSnapshot.deleted(event.getId(), event.getTimestampMillis()));
+        }
+    }
+
+    // The next lookup rebuilds from the catalog and the top sellers
+    private synchronized void invalidate() {
+        built = false;
+        counting = false;
+        shortPrefixes.clear();
+    }
+
+    private synchronized void build() {
+        if (built) {
+            return;
+        }
+        long started = System.nanoTime();
+        terms.clear();
+        byId.clear();
+        removed.clear();
+        shortPrefixes.clear();
+        sold.clear();
+        counting = true;
+        for (TopSeller seller : salesAnalytics.topSellers(Integer.MAX_VALUE)) {
+            soldOf(seller.getSweetId()).add(seller.getSold());
+        }
+        for (Sweet sweet : catalog.snapshot().getSweets()) {
+            apply(sweet);
+        }
+        built = true;
+        log.info("Built suggestion index over {} sweets ({} terms) in {} ms", byId.size(), terms.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    // New keys go in before stale ones come out, so a concurrent lookup never misses a sweet being renamed
+    private void apply(Sweet sweet) {
+        Entry previous = byId.get(sweet.getId());
+        if (previous != null ? !previous.olderThan(sweet) : CatalogSnapshot.isStale(sweet, removed.get(sweet.getId()))) {
+            return;
+        }
+        if (!Boolean.TRUE.equals(sweet.isActive())) {
+            remove(sweet.getId());
+            removed.put(sweet);
+            return;
+        }
+        removed.remove(sweet.getId());
+        Entry entry = new Entry(sweet, soldOf(sweet.getId()));
+        byId.put(entry.id, entry);
+        for (String term : entry.terms) {
+            terms.put(key(term, entry.id), entry);
+        }
+        if (previous != null) {
+            for (String term : previous.terms) {
+                if (!entry.terms.contains(term)) {
+                    terms.remove(key(term, entry.id));
+                }
+            }
+        }
+    }
+
+    private void remove(String id) {
+        Entry previous = byId.remove(id);
+        if (previous != null) {
+            for (String term : previous.terms) {
+                terms.remove(key(term, id));
+            }
+        }
+    }
+
+    private LongAdder soldOf(String id) {
+        return sold.computeIfAbsent(id, key -> new LongAdder());
+    }
+
+    private static String key(String term, String id) {
+        return term + SEPARATOR + id;
+    }
+
+    // Higher keys first, then by name and id so equal scores always come back in the same order
+    private static boolean ranksAbove(long first, long second, Entry entry, long otherFirst, long otherSecond, Entry other) {
+        if (first != otherFirst) {
+            return first > otherFirst;
+        }
+        if (second != otherSecond) {
+            return second > otherSecond;
+        }
+        int byName = entry.sortName.compareTo(other.sortName);
+        return byName != 0 ? byName < 0 : entry.id.compareTo(other.id) < 0;
+    }
+
+    private static boolean contains(Entry[] top, int size, Entry entry) {
+        for (int i = 0; i < size; i++) {
+            if (top[i].id.equals(entry.id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<String> termsOf(Sweet sweet) {
+        Set<String> terms = new HashSet<>();
+        addTerms(terms, Sweet.normalize(sweet.getName()));
+        addTerms(terms, Sweet.normalize(sweet.getCategory()));
+        return terms;
+    }
+
+    // The whole phrase as well as each word, so "kaju k" completes to "kaju katli"
+    private static void addTerms(Set<String> terms, String text) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        terms.add(text);
+        for (String word : WORDS.split(text)) {
+            if (!word.isEmpty()) {
+                terms.add(word);
+            }
+        }
+    }
+
+    private static final class RankedPrefix {
+        final List<Suggestion> suggestions;
+        final long rankedAt;
+
+        RankedPrefix(List<Suggestion> suggestions, long rankedAt) {
+            this.suggestions = suggestions;
+            this.rankedAt = rankedAt;
+        }
+    }
+
+    private static final class Entry {
+        final String id;
+        final String name;
+        final String category;
+        final Integer quantity;
+        final long stock;
+        final String sortName;
+        final LongAdder sold;
+        final Long revision;
+        final LocalDateTime updatedAt;
+        final Set<String> terms;
+
+        Entry(Sweet sweet, LongAdder sold) {
+            this.id = sweet.getId();
+            this.name = sweet.getName();
+            this.category = sweet.getCategory();
+            this.quantity = sweet.getQuantity();
+            this.stock = quantity == null ? 0 : quantity;
+            this.sortName = name == null ? "" : Sweet.normalize(name);
+            this.sold = sold;
+            this.revision = sweet.getRevision();
+            this.updatedAt = sweet.getUpdatedAt();
+            this.terms = termsOf(sweet);
+        }
+
+        // Events can arrive out of order; without a revision on both sides, a newer write wins
+        boolean olderThan(Sweet sweet) {
+            if (revision != null && sweet.getRevision() != null) {
+                return revision < sweet.getRevision();
+            }
+            return updatedAt == null || sweet.getUpdatedAt() == null || !sweet.getUpdatedAt().isBefore(updatedAt);
+        }
+
+        Suggestion toSuggestion(long sold) {
+            return new Suggestion(id, name, category, quantity, sold);
+        }
+    }
+}
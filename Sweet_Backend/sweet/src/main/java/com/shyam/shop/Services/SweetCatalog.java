@@ -0,0 +1,222 @@
+package com.shyam.shop.Services;
+
+import com.shyam.shop.Models.Sweet;
+import com.shyam.shop.Repository.SweetRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// In-memory copy of the active catalog, loaded once and then patched by every sweet change event,
+// whether the write happened on this node or on another replica.
+@Component
+public class SweetCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(SweetCatalog.class);
+    private static final int MAX_REBUILD_ATTEMPTS = 3;
+    private static final long RESYNC_DELAY_SECONDS = 5;
+
+    @Autowired
+    private SweetRepository sweetRepository;
+
+    @Value("${shop.events.tombstone-ttl-seconds:600}")
+    private long tombstoneTtlSeconds;
+
+    private volatile CatalogSnapshot current;
+    private final Object rebuildLock = new Object();
+    private final Object writeLock = new Object();
+    // While a rebuild is loading, the changes it may have missed; guarded by writeLock
+    private List<Sweet> buffered;
+    private boolean resetDuringLoad;
+    private volatile long lastVersion;
+    private volatile LocalDateTime lastModifiedFloor;
+    // Guarded by rebuildLock
+    private boolean resyncScheduled;
+    private final ScheduledExecutorService resyncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-resync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+
+    @Autowired
+    void registerMetrics(MeterRegistry meterRegistry) {
+        FunctionCounter.builder("shop.catalog.cache", hits, LongAdder::sum).tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("shop.catalog.cache", misses, LongAdder::sum).tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("shop.catalog.rebuilds", rebuilds, LongAdder::sum).register(meterRegistry);
+    }
+
+    @Autowired
+    void subscribe(ChangeEventBus events) {
+        events.subscribe(ChangeEvent.Kind.SWEET, this::onChange);
+    }
+
+    public CatalogSnapshot snapshot() {
+        CatalogSnapshot snapshot = current;
+        if (snapshot != null) {
+            hits.increment();
+            return snapshot;
+        }
+        misses.increment();
+        return rebuild();
+    }
+
+    // Never loads: null when no snapshot is published, so callers that must not block can fall back themselves
+    public CatalogSnapshot peek() {
+        CatalogSnapshot snapshot = current;
+        if (snapshot != null) {
+            hits.increment();
+        }
+        return snapshot;
+    }
+
+    public void apply(Sweet sweet) {
+        synchronized (writeLock) {
+            if (buffered != null) {
+                buffered.add(sweet);
+            }
+            if (current != null) {
+                current = applyTo(current, sweet);
+            }
+        }
+    }
+
+    private static CatalogSnapshot applyTo(CatalogSnapshot snapshot, Sweet sweet) {
+        return Boolean.TRUE.equals(sweet.isActive())
+                ? snapshot.withUpsert(sweet)
+                : snapshot.withRemoval(sweet);
+    }
+
+    private void onChange(ChangeEvent event) {
+        if (event.isReset()) {
+            invalidate();
+        } else if (event.getDocument() instanceof Sweet sweet) {
+            apply(sweet);
+        } else {
+            apply(CatalogSnapshot.deleted(event.getId(), event.getTimestampMillis()));
+        }
+    }
+
+    public void invalidate() {
+        synchronized (writeLock) {
+            CatalogSnapshot dropped = current;
+            current = null;
+            if (dropped != null) {
+                lastVersion = Math.max(lastVersion, dropped.getVersion());
+                lastModifiedFloor = dropped.getLastModified();
+            }
+            if (buffered != null) {
+                resetDuringLoad = true;
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        CatalogSnapshot snapshot = current;
+        return Map.of(
+                "hits", hits.sum(),
+                "misses", misses.sum(),
+                "rebuilds", rebuilds.sum(),
+                "version", snapshot == null ? -1L : snapshot.getVersion(),
+                "size", snapshot == null ? 0 : snapshot.size()
+        );
+    }
+
+    private CatalogSnapshot rebuild() {
+        synchronized (rebuildLock) {
+            CatalogSnapshot snapshot = current;
+            if (snapshot != null) {
+                return snapshot;
+            }
+            return reload();
+        }
+    }
+
+    // Reloads in the background after a rebuild had to publish a load that a reset may have made incomplete
+    private void resync() {
+        synchronized (rebuildLock) {
+            resyncScheduled = false;
+            reload();
+        }
+    }
+
+    // Caller holds rebuildLock
+    private CatalogSnapshot reload() {
+        for (int attempt = 1; ; attempt++) {
+            synchronized (writeLock) {
+                buffered = new ArrayList<>();
+                resetDuringLoad = false;
+            }
+            CatalogSnapshot loaded;
+            List<Sweet> missed;
+            boolean reset;
+            try {
+                loaded = load();
+            } finally {
+                synchronized (writeLock) {
+                    missed = buffered;
+                    reset = resetDuringLoad;
+                    buffered = null;
+                }
+            }
+            synchronized (writeLock) {
+                // Changes seen during the load may or may not be in it; replaying them is safe since
+                // copies that are not newer than what the load read are skipped
+                for (Sweet sweet : missed) {
+                    loaded = applyTo(loaded, sweet);
+                }
+                // A reset means events were lost, possibly ones the load did not see either
+                if (!reset || attempt == MAX_REBUILD_ATTEMPTS) {
+                    current = loaded;
+                    lastVersion = loaded.getVersion();
+                    log.debug("Catalog snapshot rebuilt with {} sweets", loaded.size());
+                }
+            }
+            if (!reset) {
+                return loaded;
+            }
+            if (attempt == MAX_REBUILD_ATTEMPTS) {
+                log.debug("Catalog was reset during every rebuild, resyncing in {}s", RESYNC_DELAY_SECONDS);
+                if (!resyncScheduled) {
+                    resyncScheduled = true;
+                    resyncer.schedule(this::resync, RESYNC_DELAY_SECONDS, TimeUnit.SECONDS);
+                }
+                return loaded;
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        resyncer.shutdownNow();
+    }
+
+    private CatalogSnapshot load() {
+        List<Sweet> active = sweetRepository.findByActiveTrue();
+        // The newest write may be a delete, which no active sweet carries
+        LocalDateTime floor = sweetRepository.findFirstByOrderByUpdatedAtDesc()
+                .map(Sweet::getUpdatedAt)
+                .orElse(null);
+        if (lastModifiedFloor != null && (floor == null || lastModifiedFloor.isAfter(floor))) {
+            floor = lastModifiedFloor;
+        }
+        rebuilds.increment();
+        return CatalogSnapshot.of(lastVersion + 1, active, floor, new Tombstones(TimeUnit.SECONDS.toMillis(tombstoneTtlSeconds)));
+    }
+}
@@ -1,110 +1,316 @@
 package com.shyam.shop.Services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shyam.shop.Models.CheckoutFailure;
+import com.shyam.shop.Models.CheckoutRequest;
+import com.shyam.shop.Models.Order;
+import com.shyam.shop.Models.Suggestion;
 import com.shyam.shop.Models.Sweet;
+import com.shyam.shop.Models.SweetPage;
 import com.shyam.shop.Repository.SweetRepository;
+import com.shyam.shop.Repository.SweetSearch;
+import com.shyam.shop.Repository.SweetSearch.SortKey;
+import com.shyam.shop.Repository.SweetSearch.StockState;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 @Service
 public class SweetService {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int DEFAULT_SUGGESTIONS = 10;
+    private static final int MAX_SUGGESTIONS = 50;
+
     @Autowired
     private SweetRepository sweetRepository;
 
+    @Autowired
+    private SweetCatalog catalog;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CatalogRenderer catalogRenderer;
+
+    @Autowired
+    private ChangeEventBus events;
+
+    @Autowired
+    private OrderLedger orderLedger;
+
+    @Autowired
+    private SalesAnalytics salesAnalytics;
+
+    @Autowired
+    private SuggestionIndex suggestions;
+
+    @Autowired
+    private CatalogIndex catalogIndex;
+
 
     public Sweet addSweet(Sweet sweet) {
         sweet.setActive(true);
         sweet.setCreatedAt(LocalDateTime.now());
         sweet.setUpdatedAt(LocalDateTime.now());
-        return sweetRepository.save(sweet);
+        return saveAndPublish(sweet);
     }
 
 
     public List<Sweet> getAllSweets() {
-        return sweetRepository.findAll()
-                .stream()
-                .filter(Sweet::isActive)
-                .toList();
+        return catalog.snapshot().getSweets();
     }
 
-    public List<Sweet> searchSweets(
+    // The snapshot's ETag and Last-Modified validate everything derived from the active catalog
+    public CatalogSnapshot getCatalog() {
+        return catalog.snapshot();
+    }
+
+    public RenderedCatalog render(CatalogSnapshot snapshot) {
+        return catalogRenderer.render(snapshot);
+    }
+
+    public long exportCatalog(OutputStream out, boolean ndjson, boolean includeInactive) throws IOException {
+        try (Stream<Sweet> sweets = sweetRepository.streamAll(includeInactive)) {
+            return StreamingExport.write(sweets, out, objectMapper, ndjson);
+        }
+    }
+
+    public Map<String, Object> getCatalogStats() {
+        return catalog.stats();
+    }
+
+    public Sweet getSweet(String id) {
+        Sweet cached = catalog.snapshot().get(id);
+        if (cached != null) {
+            return cached;
+        }
+        return sweetRepository.findById(id)
+                .filter(sweet -> Boolean.TRUE.equals(sweet.isActive()))
+                .orElseThrow(() -> new RuntimeException("Sweet not found"));
+    }
+
+    // Answered from the in-memory catalog columns, including facet counts when asked for
+    public SweetPage searchSweets(
             String name,
             String category,
             Double minPrice,
-            Double maxPrice
+            Double maxPrice,
+            String stock,
+            String sort,
+            String direction,
+            String cursor,
+            Integer limit,
+            boolean facets
     ) {
+        SweetSearch search = buildSearch(name, category, minPrice, maxPrice, stock, sort, direction, cursor, limit);
+        return catalogIndex.search(search, facets);
+    }
 
-        if (name != null && !name.isEmpty()) {
-            return sweetRepository.findByNameContainingIgnoreCase(name);
-        }
+    // Shared with ReactiveSweetService: validates the request and decodes the cursor.
+    // The query asks for one extra row, which tells toPage whether another page exists without a count query.
+    static SweetSearch buildSearch(
+            String name,
+            String category,
+            Double minPrice,
+            Double maxPrice,
+            String stock,
+            String sort,
+            String direction,
+            String cursor,
+            Integer limit
+    ) {
+        SortKey sortKey = SortKey.from(sort);
+        boolean descending = "desc".equalsIgnoreCase(direction);
+        Object afterValue = null;
+        String afterId = null;
 
-        if (category != null && !category.isEmpty()) {
-            return sweetRepository.findByCategoryIgnoreCase(category);
+        if (cursor != null && !cursor.isEmpty()) {
+            SearchCursor position = SearchCursor.decode(cursor);
+            if ((sort != null && position.getSortKey() != sortKey)
+                    || (direction != null && position.isDescending() != descending)) {
+                throw new IllegalArgumentException("Cursor does not match the requested sort");
+            }
+            sortKey = position.getSortKey();
+            descending = position.isDescending();
+            afterValue = position.getValue();
+            afterId = position.getId();
         }
 
-        if (minPrice != null && maxPrice != null) {
-            return sweetRepository.findByPriceBetween(minPrice, maxPrice);
-        }
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return new SweetSearch(name, category, minPrice, maxPrice, StockState.parse(stock),
+                sortKey, descending, afterValue, afterId, pageSize + 1);
+    }
 
-        return getAllSweets();
+    public List<Suggestion> suggest(String query, String rank, Integer limit) {
+        int size = limit == null ? DEFAULT_SUGGESTIONS : Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        return suggestions.suggest(query, SuggestionIndex.Rank.from(rank), size);
     }
 
+    static SweetPage toPage(List<Sweet> rows, SweetSearch search) {
+        int pageSize = search.getLimit() - 1;
+        if (rows.size() <= pageSize) {
+            return new SweetPage(rows, null);
+        }
+        List<Sweet> page = rows.subList(0, pageSize);
+        return new SweetPage(List.copyOf(page),
+                SearchCursor.encode(search.getSortKey(), search.isDescending(), page.get(pageSize - 1)));
+    }
 
-    public Sweet updateSweet(String id, Sweet sweet) {
-        Sweet existing = sweetRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Sweet not found"));
 
-        existing.setName(sweet.getName());
-        existing.setCategory(sweet.getCategory());
-        existing.setPrice(sweet.getPrice());
-        existing.setQuantity(sweet.getQuantity());
-        existing.setDescription(sweet.getDescription());
-        existing.setUpdatedAt(LocalDateTime.now());
+    // PUT: every editable field takes the request's value, so a missing one is cleared
+    public Sweet updateSweet(String id, Sweet sweet) {
+        return publish(sweetRepository.updateFields(id, sweet, false));
+    }
 
-        return sweetRepository.save(existing);
+    // PATCH: only the fields present in the request change
+    public Sweet patchSweet(String id, Sweet changes) {
+        if (changes.getName() == null && changes.getCategory() == null && changes.getPrice() == null
+                && changes.getQuantity() == null && changes.getDescription() == null) {
+            throw new IllegalArgumentException("No fields to update");
+        }
+        return publish(sweetRepository.updateFields(id, changes, true));
     }
 
 
     public void deleteSweet(String id) {
-        Sweet sweet = sweetRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Sweet not found"));
+        publish(sweetRepository.deactivate(id));
+    }
 
 
-        sweet.setActive(false);
-        sweet.setUpdatedAt(LocalDateTime.now());
-        sweetRepository.save(sweet);
+    public Sweet purchaseSweet(String id, int quantity, String buyer) {
+        if (quantity <= 0) {
+            throw new RuntimeException("Quantity must be positive");
+        }
+
+        Sweet purchased = sweetRepository.purchase(id, quantity);
+        if (purchased == null) {
+            // Only the failure path pays for a second read, to tell the caller why
+            Sweet sweet = sweetRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Sweet not found"));
+            if (!Boolean.TRUE.equals(sweet.isActive())) {
+                throw new RuntimeException("Sweet is not available");
+            }
+            throw new RuntimeException("Insufficient stock");
+        }
+
+        events.publish(ChangeEvent.sweet(purchased));
+        orderLedger.record(order(UUID.randomUUID().toString(), buyer, List.of(purchased), Map.of(id, quantity)));
+        salesAnalytics.recordSale(purchased, quantity);
+        suggestions.recordSale(id, quantity);
+        return purchased;
     }
 
 
-    public Sweet purchaseSweet(String id, int quantity) {
-        Sweet sweet = sweetRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Sweet not found"));
+    // All-or-nothing: every line is decremented in one bulk write, and if any line misses the whole order is rolled back
+    public List<Sweet> checkout(CheckoutRequest request, String buyer) {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        List<CheckoutFailure> invalid = new ArrayList<>();
 
-        if (!sweet.isActive()) {
-            throw new RuntimeException("Sweet is not available");
+        if (request == null || request.getLines() == null || request.getLines().isEmpty()) {
+            throw new CheckoutException(List.of(new CheckoutFailure(null, null, "Cart is empty")), true);
+        }
+        for (CheckoutRequest.Line line : request.getLines()) {
+            if (line.getSweetId() == null || line.getSweetId().isEmpty()) {
+                invalid.add(new CheckoutFailure(line.getSweetId(), line.getQuantity(), "Missing sweetId"));
+            } else if (line.getQuantity() == null || line.getQuantity() <= 0) {
+                invalid.add(new CheckoutFailure(line.getSweetId(), line.getQuantity(), "Quantity must be positive"));
+            } else {
+                quantities.merge(line.getSweetId(), line.getQuantity(), Integer::sum);
+            }
+        }
+        if (!invalid.isEmpty()) {
+            throw new CheckoutException(invalid, true);
         }
 
-        if (sweet.getQuantity() < quantity) {
-            throw new RuntimeException("Insufficient stock");
+        String orderId = UUID.randomUUID().toString();
+        int applied = sweetRepository.reserve(orderId, quantities);
+        if (applied == quantities.size()) {
+            if (!sweetRepository.commitReservation(orderId, quantities.keySet())) {
+                // Took longer than the reservation ttl and the sweeper gave some stock back: undo the rest
+                sweetRepository.rollbackReservation(orderId, quantities);
+                throw new CheckoutException(List.of(new CheckoutFailure(null, null, "Reservation expired, please retry")), false);
+            }
+            List<Sweet> updated = sweetRepository.findAllById(quantities.keySet());
+            updated.forEach(sweet -> events.publish(ChangeEvent.sweet(sweet)));
+            orderLedger.record(order(orderId, buyer, updated, quantities));
+            updated.forEach(sweet -> salesAnalytics.recordSale(sweet, quantities.get(sweet.getId())));
+            quantities.forEach(suggestions::recordSale);
+            return updated;
         }
 
-        sweet.setQuantity(sweet.getQuantity() - quantity);
-        sweet.setUpdatedAt(LocalDateTime.now());
+        sweetRepository.rollbackReservation(orderId, quantities);
+        throw new CheckoutException(explainRejectedLines(quantities), false);
+    }
 
-        return sweetRepository.save(sweet);
+    // Prices come from the sweets as they were right after the stock was taken
+    private static Order order(String id, String buyer, List<Sweet> sweets, Map<String, Integer> quantities) {
+        List<Order.Line> lines = new ArrayList<>(sweets.size());
+        double total = 0;
+        for (Sweet sweet : sweets) {
+            int quantity = quantities.get(sweet.getId());
+            lines.add(new Order.Line(sweet.getId(), sweet.getName(), quantity, sweet.getPrice()));
+            total += sweet.getPrice() == null ? 0 : sweet.getPrice() * quantity;
+        }
+        return new Order(id, buyer, lines, total, LocalDateTime.now());
+    }
+
+    private List<CheckoutFailure> explainRejectedLines(Map<String, Integer> quantities) {
+        Map<String, Sweet> current = new HashMap<>();
+        sweetRepository.findAllById(quantities.keySet()).forEach(sweet -> current.put(sweet.getId(), sweet));
+
+        List<CheckoutFailure> failures = new ArrayList<>();
+        quantities.forEach((id, quantity) -> {
+            Sweet sweet = current.get(id);
+            if (sweet == null) {
+                failures.add(new CheckoutFailure(id, quantity, "Sweet not found"));
+            } else if (!Boolean.TRUE.equals(sweet.isActive())) {
+                failures.add(new CheckoutFailure(id, quantity, "Sweet is not available"));
+            } else if (sweet.getQuantity() < quantity) {
+                failures.add(new CheckoutFailure(id, quantity, "Insufficient stock (" + sweet.getQuantity() + " left)"));
+            }
+        });
+        if (failures.isEmpty()) {
+            // Whatever blocked the order has since been resolved by another writer
+            quantities.forEach((id, quantity) ->
+                    failures.add(new CheckoutFailure(id, quantity, "Stock changed during checkout, please retry")));
+        }
+        return failures;
     }
 
 
     public Sweet restockSweet(String id, int quantity) {
-        Sweet sweet = sweetRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Sweet not found"));
+        if (quantity <= 0) {
+            throw new RuntimeException("Quantity must be positive");
+        }
+        Sweet restocked = publish(sweetRepository.restock(id, quantity));
+        salesAnalytics.recordRestock(restocked, quantity);
+        return restocked;
+    }
 
-        sweet.setQuantity(sweet.getQuantity() + quantity);
-        sweet.setUpdatedAt(LocalDateTime.now());
+    private Sweet saveAndPublish(Sweet sweet) {
+        sweet.setRevision(sweet.getRevision() == null ? 1 : sweet.getRevision() + 1);
+        return publish(sweetRepository.save(sweet));
+    }
 
-        return sweetRepository.save(sweet);
+    // Takes the result of a single-round-trip update, which is null when the id matched nothing
+    private Sweet publish(Sweet updated) {
+        if (updated == null) {
+            throw new RuntimeException("Sweet not found");
+        }
+        events.publish(ChangeEvent.sweet(updated));
+        return updated;
     }
 }
@@ -0,0 +1,70 @@
+package com.shyam.shop.Services;
+
+import com.shyam.shop.Models.Sweet;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.LongSupplier;
+
+// Last removal of each id, so a late copy of an older state cannot bring it back. Kept for ttl after it was
+// recorded, which must exceed the change bus lag; older ones are dropped oldest first. Not thread-safe.
+final class Tombstones {
+
+    static final long DEFAULT_TTL_MILLIS = 600_000;
+
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, Tombstone> byId = new LinkedHashMap<>();
+
+    Tombstones(long ttlMillis) {
+        this(ttlMillis, System::currentTimeMillis);
+    }
+
+    Tombstones(long ttlMillis, LongSupplier clock) {
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    Sweet get(String id) {
+        Tombstone tombstone = byId.get(id);
+        return tombstone == null ? null : tombstone.sweet;
+    }
+
+    void put(Sweet sweet) {
+        long now = clock.getAsLong();
+        prune(now);
+        // Re-inserted so the map stays in recording order
+        byId.remove(sweet.getId());
+        byId.put(sweet.getId(), new Tombstone(sweet, now));
+    }
+
+    void remove(String id) {
+        byId.remove(id);
+        prune(clock.getAsLong());
+    }
+
+    void clear() {
+        byId.clear();
+    }
+
+    int size() {
+        return byId.size();
+    }
+
+    private void prune(long now) {
+        Iterator<Tombstone> oldestFirst = byId.values().iterator();
+        while (oldestFirst.hasNext() && now - oldestFirst.next().recordedAt > ttlMillis) {
+            oldestFirst.remove();
+        }
+    }
+
+    private static final class Tombstone {
+        private final Sweet sweet;
+        private final long recordedAt;
+
+        private Tombstone(Sweet sweet, long recordedAt) {
+            this.sweet = sweet;
+            this.recordedAt = recordedAt;
+        }
+    }
+}
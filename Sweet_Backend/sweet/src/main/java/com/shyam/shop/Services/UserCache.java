@@ -0,0 +1,238 @@
+package com.shyam.shop.Services;
+
+import com.shyam.shop.Models.User;
+import com.shyam.shop.Repository.AuthRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+// Caches AuthRepository.findByEmail by normalized email until ttl-seconds or a user change event. A Bloom filter
+// of registered emails lets most registrations skip the duplicate read.
+@Component
+public class UserCache {
+
+    private static final Logger log = LoggerFactory.getLogger(UserCache.class);
+
+    private final AuthRepository repository;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final long bloomExpected;
+    private final double bloomFalsePositiveRate;
+
+    private final BoundedCache<String, Entry> byEmail;
+    // Change events name users by id only, so this finds the cache key to drop
+    private final BoundedCache<String, String> emailById;
+    // Exact emails of legacy accounts that differ only in case from another account, see AuthService
+    private final Set<String> caseConflicts = ConcurrentHashMap.newKeySet();
+    // Bumped by every invalidation; a load that saw it move may hold a stale user and is not cached
+    private final AtomicLong invalidations = new AtomicLong();
+
+    // Null until the first build finishes; until then every email might exist
+    private volatile EmailBloomFilter bloom;
+    private volatile EmailBloomFilter building;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bloomNegatives = new LongAdder();
+
+    public UserCache(AuthRepository repository,
+                     ChangeEventBus events,
+                     MeterRegistry meterRegistry,
+                     @Value("${shop.users.cache-size:10000}") int maxSize,
+                     @Value("${shop.users.cache-ttl-seconds:300}") long ttlSeconds,
+                     @Value("${shop.users.bloom-expected:1000000}") long bloomExpected,
+                     @Value("${shop.users.bloom-fpp:0.01}") double bloomFalsePositiveRate) {
+        this.repository = repository;
+        this.maxSize = maxSize;
+        this.byEmail = new BoundedCache<>(maxSize);
+        this.emailById = new BoundedCache<>(maxSize);
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.bloomExpected = bloomExpected;
+        this.bloomFalsePositiveRate = bloomFalsePositiveRate;
+        events.subscribe(ChangeEvent.Kind.USER, this::onChange);
+
+        FunctionCounter.builder("shop.users.cache", hits, LongAdder::sum).tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("shop.users.cache", misses, LongAdder::sum).tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("shop.users.bloom.negatives", bloomNegatives, LongAdder::sum)
+                .description("Registrations that skipped the duplicate-email read").register(meterRegistry);
+        Gauge.builder("shop.users.cache.size", byEmail, BoundedCache::size).register(meterRegistry);
+    }
+
+    public static String normalize(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public Optional<User> findByEmail(String email) {
+        String key = normalize(email);
+        if (key == null) {
+            return Optional.empty();
+        }
+        if (!key.equals(email) && caseConflicts.contains(email)) {
+            // The normalized email belongs to the other account of the pair
+            Optional<User> exact = repository.findByEmail(email);
+            if (exact.isPresent()) {
+                return exact;
+            }
+        }
+        long now = System.currentTimeMillis();
+        Entry cached = byEmail.get(key);
+        if (cached != null) {
+            if (cached.expiresAt > now) {
+                hits.increment();
+                return Optional.of(cached.user);
+            }
+            byEmail.remove(key, cached);
+        }
+        misses.increment();
+
+        long invalidationsBefore = invalidations.get();
+        Optional<User> loaded = repository.findByEmail(key);
+        if (loaded.isPresent() && maxSize > 0 && invalidations.get() == invalidationsBefore) {
+            User user = loaded.get();
+            byEmail.put(key, new Entry(user, now + ttlMillis));
+            emailById.put(user.getId(), key);
+        }
+        if (loaded.isEmpty() && !key.equals(email)) {
+            // A legacy account the startup pass has not normalized yet
+            return repository.findByEmail(email);
+        }
+        return loaded;
+    }
+
+    // Recorded by AuthService for legacy accounts it could not normalize, so only they cost an extra read
+    public void caseConflict(String email) {
+        caseConflicts.add(email);
+    }
+
+    // False only when no user has this email; true means "ask the database"
+    public boolean mightExist(String email) {
+        EmailBloomFilter filter = bloom;
+        String key = normalize(email);
+        if (filter == null || key == null || filter.mightContain(key)) {
+            return true;
+        }
+        bloomNegatives.increment();
+        return false;
+    }
+
+    // Called right after a user is stored, before its change event, so the very next registration sees it
+    public void added(User user) {
+        remember(user.getEmail());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        rebuildBloomFilter();
+    }
+
+    public Map<String, Object> stats() {
+        return Map.of(
+                "size", byEmail.size(),
+                "hits", hits.sum(),
+                "misses", misses.sum(),
+                "bloomReady", bloom != null,
+                "bloomNegatives", bloomNegatives.sum()
+        );
+    }
+
+    private void onChange(ChangeEvent event) {
+        invalidations.incrementAndGet();
+        if (event.isReset()) {
+            byEmail.clear();
+            emailById.clear();
+            // Users may have been added elsewhere without an event reaching this node
+            rebuildBloomFilter();
+            return;
+        }
+        String key = emailById.remove(event.getId());
+        if (key != null) {
+            byEmail.remove(key);
+        }
+        if (event.getDocument() instanceof User user) {
+            // The email may have just changed, leaving the new address under a key the id did not point to
+            byEmail.remove(normalize(user.getEmail()));
+            remember(user.getEmail());
+        }
+    }
+
+    private void remember(String email) {
+        String key = normalize(email);
+        if (key == null) {
+            return;
+        }
+        EmailBloomFilter next = building;
+        if (next != null) {
+            next.add(key);
+        }
+        EmailBloomFilter current = bloom;
+        if (current != null && current != next) {
+            current.add(key);
+        }
+    }
+
+    private void rebuildBloomFilter() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            long started = System.nanoTime();
+            try {
+                EmailBloomFilter next = new EmailBloomFilter(bloomExpected, bloomFalsePositiveRate);
+                // Registrations during the scan are added here too, so none can be missed
+                building = next;
+                long count = 0;
+                try (Stream<String> emails = repository.streamEmails()) {
+                    for (Iterator<String> it = emails.iterator(); it.hasNext(); count++) {
+                        String email = normalize(it.next());
+                        if (email != null) {
+                            next.add(email);
+                        }
+                    }
+                }
+                bloom = next;
+                if (count > bloomExpected) {
+                    log.warn("{} users exceed shop.users.bloom-expected={}; raise it to keep the false positive rate",
+                            count, bloomExpected);
+                }
+                log.info("Built email Bloom filter over {} users in {} ms", count,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            } catch (RuntimeException e) {
+                log.warn("Could not build email Bloom filter, duplicate checks keep reading Mongo: {}", e.getMessage());
+            } finally {
+                building = null;
+                rebuilding.set(false);
+            }
+        }, "user-bloom-build");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static final class Entry {
+        final User user;
+        final long expiresAt;
+
+        Entry(User user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
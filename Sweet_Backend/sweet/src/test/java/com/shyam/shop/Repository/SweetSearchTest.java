@@ -0,0 +1,60 @@
+package com.shyam.shop.Repository;
+
+import com.shyam.shop.Models.Sweet;
+import com.shyam.shop.Repository.SweetSearch.SortKey;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SweetSearchTest {
+
+    private static final int PAGE = 2;
+
+    // Unpriced sweets sort before every price; paging must neither stop nor skip rows when a page ends on one
+    @Test
+    void pagesCrossRowsWithoutASortValue() {
+        MongoServer mongo = new MongoServer(new MemoryBackend());
+        try {
+            InetSocketAddress address = mongo.bind();
+            MongoTemplate template = new MongoTemplate(new SimpleMongoClientDatabaseFactory(
+                    "mongodb://" + address.getHostString() + ":" + address.getPort() + "/search-test"));
+            Double[] prices = {null, 20.0, null, 10.0, null, 20.0};
+            for (int i = 0; i < prices.length; i++) {
+                Sweet sweet = new Sweet();
+                sweet.setId("s" + i);
+                sweet.setName("Sweet " + i);
+                sweet.setPrice(prices[i]);
+                sweet.setActive(true);
+                template.insert(sweet);
+            }
+
+            assertEquals(List.of("s0", "s2", "s4", "s3", "s1", "s5"), pageThrough(template, false));
+            assertEquals(List.of("s5", "s1", "s3", "s4", "s2", "s0"), pageThrough(template, true));
+        } finally {
+            mongo.shutdownNow();
+        }
+    }
+
+    private static List<String> pageThrough(MongoTemplate template, boolean descending) {
+        List<String> ids = new ArrayList<>();
+        Sweet last = null;
+        while (true) {
+            SweetSearch search = new SweetSearch(null, null, null, null, null, SortKey.PRICE, descending,
+                    last == null ? null : SortKey.PRICE.valueOf(last), last == null ? null : last.getId(), PAGE);
+            List<Sweet> page = template.find(search.toQuery(), Sweet.class);
+            page.forEach(sweet -> ids.add(sweet.getId()));
+            if (page.size() < PAGE) {
+                return ids;
+            }
+            last = page.get(page.size() - 1);
+        }
+    }
+}
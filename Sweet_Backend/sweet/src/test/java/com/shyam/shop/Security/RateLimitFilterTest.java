@@ -0,0 +1,67 @@
+package com.shyam.shop.Security;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+// Over a real connection from loopback, a trusted proxy, so Tomcat resolves the client from X-Forwarded-For
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class RateLimitFilterTest {
+
+    private static final int LOGIN_BURST = 10;
+
+    private static final MongoServer mongo = new MongoServer(new MemoryBackend());
+
+    @TempDir
+    static Path journalDir;
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        String address = mongo.bindAndGetConnectionString();
+        registry.add("spring.data.mongodb.uri", () -> address + "/ratelimit-test?serverSelectionTimeoutMS=2000");
+        registry.add("shop.orders.journal-dir", () -> journalDir.toString());
+    }
+
+    @AfterAll
+    static void stopMongo() {
+        mongo.shutdown();
+    }
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Test
+    void clientsBehindTheSameProxyGetTheirOwnBuckets() {
+        for (int i = 0; i < LOGIN_BURST; i++) {
+            assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, login("203.0.113.7"));
+        }
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, login("203.0.113.7"));
+        assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, login("198.51.100.23"));
+    }
+
+    private HttpStatus login(String clientIp) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Forwarded-For", clientIp);
+        Map<String, String> body = Map.of("email", "nobody@example.com", "password", "wrong");
+        return HttpStatus.valueOf(rest.postForEntity("/api/auth/login", new HttpEntity<>(body, headers), String.class)
+                .getStatusCode().value());
+    }
+}
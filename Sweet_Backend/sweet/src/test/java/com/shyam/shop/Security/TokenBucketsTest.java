@@ -0,0 +1,57 @@
+package com.shyam.shop.Security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketsTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void burstThenSteadyRefill() {
+        TokenBuckets buckets = new TokenBuckets(3, 2, 100);
+        long now = 1_000 * SECOND;
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, buckets.tryAcquire("a", now));
+        }
+        long wait = buckets.tryAcquire("a", now);
+        assertEquals(SECOND / 2, wait);
+        // Other callers have their own bucket
+        assertEquals(0, buckets.tryAcquire("b", now));
+
+        assertEquals(0, buckets.tryAcquire("a", now + wait));
+        assertTrue(buckets.tryAcquire("a", now + wait) > 0);
+    }
+
+    @Test
+    void idleKeysExpireOnceRefilled() {
+        TokenBuckets buckets = new TokenBuckets(3, 2, 100);
+        long now = 1_000 * SECOND;
+        buckets.tryAcquire("a", now);
+        buckets.tryAcquire("a", now);
+
+        assertEquals(0, buckets.expireIdle(now));
+        assertEquals(1, buckets.expireIdle(now + SECOND));
+        assertEquals(0, buckets.size());
+    }
+
+    @Test
+    void fullMapEvictsTheBucketNearestToFull() {
+        TokenBuckets buckets = new TokenBuckets(3, 2, 2);
+        long now = 1_000 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            buckets.tryAcquire("a", now);
+        }
+        buckets.tryAcquire("b", now);
+
+        // A new caller gets its own bucket; "b" had the least to lose, "a" stays throttled
+        assertEquals(0, buckets.tryAcquire("c", now));
+        assertEquals(2, buckets.size());
+        assertTrue(buckets.tryAcquire("a", now) > 0);
+    }
+}
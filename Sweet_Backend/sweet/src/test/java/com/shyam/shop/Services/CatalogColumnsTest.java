@@ -0,0 +1,117 @@
+package com.shyam.shop.Services;
+
+import com.shyam.shop.Models.FacetCount;
+import com.shyam.shop.Models.Sweet;
+import com.shyam.shop.Models.SweetPage;
+import com.shyam.shop.Repository.SweetSearch;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CatalogColumnsTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 12, 0);
+    private static final double[] BUCKETS = {100, 250};
+    private static final long TOMBSTONE_TTL_MILLIS = 600_000;
+
+    private static Sweet sweet(String id, String category, double price, int quantity, long revision) {
+        Sweet sweet = new Sweet();
+        sweet.setId(id);
+        sweet.setName("Sweet " + id);
+        sweet.setCategory(category);
+        sweet.setPrice(price);
+        sweet.setQuantity(quantity);
+        sweet.setActive(true);
+        sweet.setRevision(revision);
+        sweet.setCreatedAt(T0);
+        sweet.setUpdatedAt(T0.plusMinutes(revision));
+        return sweet;
+    }
+
+    @Test
+    void facetsIgnoreTheirOwnFilterAndFollowIncrementalChanges() {
+        CatalogColumns columns = new CatalogColumns(BUCKETS, TOMBSTONE_TTL_MILLIS);
+        columns.load(List.of(
+                sweet("a", "Chocolate", 50, 40, 1),
+                sweet("b", "Chocolate", 120, 5, 1),
+                sweet("c", "Barfi", 80, 0, 1),
+                sweet("d", "Barfi", 300, 20, 1)
+        ));
+
+        SweetPage page = columns.search(search("chocolate", null, null, "price", null), true);
+        assertEquals(List.of("a", "b"), ids(page));
+        // Category counts ignore the category filter; price and stock counts apply it
+        assertEquals(Map.of("Chocolate", 2L, "Barfi", 2L), counts(page.getFacets().getCategories()));
+        assertEquals(Map.of("0-100", 1L, "100-250", 1L), counts(page.getFacets().getPrices()));
+        assertEquals(Map.of("in", 1L, "low", 1L), counts(page.getFacets().getStock()));
+
+        // Restock b, move c to Chocolate, deactivate a
+        columns.upsert(sweet("b", "Chocolate", 120, 50, 2));
+        columns.upsert(sweet("c", "Chocolate", 80, 0, 2));
+        Sweet removed = sweet("a", "Chocolate", 50, 40, 2);
+        removed.setActive(false);
+        columns.upsert(removed);
+        // A late copy of an older revision changes nothing, nor brings back a removed sweet
+        columns.upsert(sweet("d", "Barfi", 1, 1, 1));
+        columns.upsert(sweet("a", "Chocolate", 50, 40, 1));
+
+        page = columns.search(search("chocolate", null, null, "price", null), true);
+        assertEquals(List.of("c", "b"), ids(page));
+        assertEquals(Map.of("Chocolate", 2L, "Barfi", 1L), counts(page.getFacets().getCategories()));
+        assertEquals(Map.of("in", 1L, "out", 1L), counts(page.getFacets().getStock()));
+
+        CatalogColumns fresh = new CatalogColumns(BUCKETS, TOMBSTONE_TTL_MILLIS);
+        fresh.load(List.of(sweet("b", "Chocolate", 120, 50, 2), sweet("c", "Chocolate", 80, 0, 2), sweet("d", "Barfi", 300, 20, 1)));
+        SweetPage rebuilt = fresh.search(search("chocolate", null, null, "price", null), true);
+        assertEquals(ids(rebuilt), ids(page));
+        assertEquals(rebuilt.getFacets(), page.getFacets());
+    }
+
+    @Test
+    void pagesFollowTheSortKeyAndCursor() {
+        List<Sweet> sweets = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            // Several sweets share each price so the id breaks ties
+            sweets.add(sweet(String.format("id%02d", i), i % 2 == 0 ? "Ladoo" : "Halwa", 10 * (i % 5), 20, 1));
+        }
+        CatalogColumns columns = new CatalogColumns(BUCKETS, TOMBSTONE_TTL_MILLIS);
+        columns.load(sweets);
+
+        List<String> expected = sweets.stream()
+                .filter(s -> s.getPrice() >= 10 && s.getPrice() <= 30)
+                .sorted((x, y) -> x.getPrice().equals(y.getPrice())
+                        ? y.getId().compareTo(x.getId())
+                        : Double.compare(y.getPrice(), x.getPrice()))
+                .map(Sweet::getId)
+                .collect(Collectors.toList());
+
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            SweetPage page = columns.search(SweetService.buildSearch(null, null, 10.0, 30.0, "in,low", "price", "desc", cursor, 4), false);
+            assertNull(page.getFacets());
+            seen.addAll(ids(page));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(expected, seen);
+    }
+
+    private static SweetSearch search(String category, Double minPrice, Double maxPrice, String sort, String stock) {
+        return SweetService.buildSearch(null, category, minPrice, maxPrice, stock, sort, null, null, 20);
+    }
+
+    private static List<String> ids(SweetPage page) {
+        return page.getItems().stream().map(Sweet::getId).collect(Collectors.toList());
+    }
+
+    private static Map<String, Long> counts(List<FacetCount> facets) {
+        return facets.stream().collect(Collectors.toMap(FacetCount::getValue, FacetCount::getCount));
+    }
+}
@@ -0,0 +1,116 @@
+package com.shyam.shop.Services;
+
+import com.shyam.shop.Models.Sweet;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CatalogSnapshotTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private static Sweet sweet(String id, long revision, LocalDateTime updatedAt) {
+        Sweet sweet = new Sweet();
+        sweet.setId(id);
+        sweet.setName("Sweet " + id);
+        sweet.setActive(true);
+        sweet.setRevision(revision);
+        sweet.setUpdatedAt(updatedAt);
+        return sweet;
+    }
+
+    @Test
+    void incrementalChangesMatchAFreshRebuild() {
+        List<Sweet> initial = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            initial.add(sweet("id" + i, 1, T0.plusMinutes(i)));
+        }
+        CatalogSnapshot snapshot = CatalogSnapshot.of(1, initial, null);
+        String original = snapshot.getETag();
+
+        Sweet updated = sweet("id7", 2, T0.plusHours(2));
+        Sweet added = sweet("new", 1, T0.plusHours(3));
+        Sweet removed = sweet("id3", 2, T0.plusHours(4));
+        removed.setActive(false);
+        snapshot = snapshot.withUpsert(updated).withUpsert(added).withRemoval(removed);
+
+        List<Sweet> expected = new ArrayList<>(initial);
+        expected.set(7, updated);
+        expected.remove(3);
+        expected.add(added);
+        CatalogSnapshot rebuilt = CatalogSnapshot.of(9, expected, T0.plusHours(4));
+
+        assertNotEquals(original, snapshot.getETag());
+        assertEquals(rebuilt.getETag(), snapshot.getETag());
+        assertEquals(T0.plusHours(4), snapshot.getLastModified());
+        assertEquals(rebuilt.getLastModified(), snapshot.getLastModified());
+    }
+
+    @Test
+    void olderCopyLeavesValidatorsUnchanged() {
+        CatalogSnapshot snapshot = CatalogSnapshot.of(1, List.of(sweet("a", 5, T0)), null);
+        CatalogSnapshot same = snapshot.withUpsert(sweet("a", 4, T0.minusDays(1)));
+
+        assertEquals(snapshot.getETag(), same.getETag());
+        assertEquals(snapshot.getLastModifiedMillis(), same.getLastModifiedMillis());
+        // The change-stream echo of a write this node already applied
+        assertSame(snapshot, snapshot.withUpsert(sweet("a", 5, T0)));
+    }
+
+    @Test
+    void olderSnapshotKeepsItsContent() {
+        List<Sweet> initial = new ArrayList<>();
+        for (int i = 0; i < 1000; i += 2) {
+            initial.add(sweet(String.format("id%04d", i), 1, T0));
+        }
+        CatalogSnapshot first = CatalogSnapshot.of(1, initial, null);
+
+        CatalogSnapshot snapshot = first;
+        for (int i = 1; i < 1000; i += 2) {
+            snapshot = snapshot.withUpsert(sweet(String.format("id%04d", i), 1, T0));
+        }
+        Sweet gone = sweet("id0500", 2, T0.plusHours(1));
+        gone.setActive(false);
+        snapshot = snapshot.withRemoval(gone);
+
+        assertEquals(initial, first.getSweets());
+        assertSame(initial.get(250), first.get("id0500"));
+        assertNull(first.get("id0501"));
+        assertEquals(999, snapshot.size());
+        assertNull(snapshot.get("id0500"));
+        List<String> ids = snapshot.getSweets().stream().map(Sweet::getId).collect(Collectors.toList());
+        assertEquals(ids.stream().sorted().collect(Collectors.toList()), ids);
+        assertEquals(999, ids.size());
+    }
+
+    @Test
+    void tombstonesArePrunedAfterTheirTtl() {
+        AtomicLong clock = new AtomicLong();
+        Tombstones tombstones = new Tombstones(1_000, clock::get);
+        CatalogSnapshot snapshot = CatalogSnapshot.of(1, List.of(sweet("a", 3, T0), sweet("b", 3, T0)), null, tombstones);
+
+        Sweet removedA = sweet("a", 4, T0.plusMinutes(1));
+        removedA.setActive(false);
+        snapshot = snapshot.withRemoval(removedA);
+        clock.set(500);
+        // Within the ttl a late copy from before the removal is still recognised
+        assertSame(snapshot, snapshot.withUpsert(sweet("a", 3, T0)));
+
+        clock.set(1_500);
+        Sweet removedB = sweet("b", 4, T0.plusMinutes(1));
+        removedB.setActive(false);
+        snapshot = snapshot.withRemoval(removedB);
+        assertEquals(1, tombstones.size());
+        assertNull(tombstones.get("a"));
+        assertSame(removedB, tombstones.get("b"));
+    }
+}
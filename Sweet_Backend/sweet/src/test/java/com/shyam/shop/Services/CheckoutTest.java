@@ -0,0 +1,129 @@
+package com.shyam.shop.Services;
+
+import com.shyam.shop.Models.CheckoutRequest;
+import com.shyam.shop.Models.Sweet;
+import com.shyam.shop.Repository.SweetRepository;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class CheckoutTest {
+
+    private static final MongoServer mongo = new MongoServer(new MemoryBackend());
+
+    @TempDir
+    static Path journalDir;
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        String address = mongo.bindAndGetConnectionString();
+        registry.add("spring.data.mongodb.uri", () -> address + "/checkout-test?serverSelectionTimeoutMS=2000");
+        registry.add("shop.orders.journal-dir", () -> journalDir.toString());
+    }
+
+    @AfterAll
+    static void stopMongo() {
+        mongo.shutdown();
+    }
+
+    @Autowired
+    private SweetService sweetService;
+
+    @Autowired
+    private SweetRepository sweetRepository;
+
+    @Autowired
+    private ReservationSweeper reservationSweeper;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Test
+    void checkoutTakesEveryLineOrNone() {
+        String barfi = addSweet("Kaju Barfi", 10);
+        String ladoo = addSweet("Besan Ladoo", 3);
+
+        List<Sweet> bought = sweetService.checkout(cart(Map.of(barfi, 4, ladoo, 3)), "buyer@example.com");
+        assertEquals(2, bought.size());
+        assertEquals(6, stock(barfi));
+        assertEquals(0, stock(ladoo));
+        assertFalse(isTagged(barfi) || isTagged(ladoo));
+
+        CheckoutException rejected = assertThrows(CheckoutException.class,
+                () -> sweetService.checkout(cart(Map.of(barfi, 2, ladoo, 1)), "buyer@example.com"));
+        assertEquals(ladoo, rejected.getFailures().get(0).getSweetId());
+        assertEquals(6, stock(barfi));
+        assertEquals(0, stock(ladoo));
+        assertFalse(isTagged(barfi) || isTagged(ladoo));
+    }
+
+    // The sweeper releases one line between reserve and commit: the commit must leave the other line tagged so
+    // the rollback gives its stock back too, instead of keeping it as sold
+    @Test
+    void expiredLineFailsTheWholeCommit() {
+        String halwa = addSweet("Gajar Halwa", 10);
+        String peda = addSweet("Mathura Peda", 10);
+
+        String orderId = "expired-order";
+        Map<String, Integer> quantities = Map.of(halwa, 2, peda, 5);
+        assertEquals(2, sweetRepository.reserve(orderId, quantities));
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("id").is(peda).and("pendingOrders.order").is(orderId)),
+                new Update().set("pendingOrders.$.at", new Date(0)),
+                Sweet.class);
+        assertEquals(1, reservationSweeper.sweep());
+
+        assertFalse(sweetRepository.commitReservation(orderId, quantities.keySet()));
+        assertTrue(isTagged(halwa));
+        sweetRepository.rollbackReservation(orderId, quantities);
+
+        assertEquals(10, stock(halwa));
+        assertEquals(10, stock(peda));
+        assertFalse(isTagged(halwa) || isTagged(peda));
+    }
+
+    private String addSweet(String name, int quantity) {
+        Sweet sweet = new Sweet();
+        sweet.setName(name);
+        sweet.setCategory("Traditional");
+        sweet.setPrice(25.0);
+        sweet.setQuantity(quantity);
+        return sweetService.addSweet(sweet).getId();
+    }
+
+    private static CheckoutRequest cart(Map<String, Integer> quantities) {
+        return new CheckoutRequest(quantities.entrySet().stream()
+                .map(line -> new CheckoutRequest.Line(line.getKey(), line.getValue()))
+                .toList());
+    }
+
+    private int stock(String id) {
+        return sweetRepository.findById(id).orElseThrow().getQuantity();
+    }
+
+    private boolean isTagged(String id) {
+        return mongoTemplate.exists(
+                new Query(Criteria.where("id").is(id).and("pendingOrders.0").exists(true)), Sweet.class);
+    }
+}
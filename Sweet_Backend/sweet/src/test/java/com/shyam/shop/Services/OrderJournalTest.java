@@ -0,0 +1,64 @@
+package com.shyam.shop.Services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.shyam.shop.Models.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderJournalTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void unpersistedOrdersAreReplayedByTheNextProcess() throws Exception {
+        OrderJournal crashed = new OrderJournal(dir, 1024 * 1024, objectMapper);
+        long segment = crashed.append(order("o1"));
+        crashed.append(order("o2"));
+        crashed.persisted(segment, 1);
+
+        OrderJournal restarted = new OrderJournal(dir, 1024 * 1024, objectMapper);
+        // Still locked by its owner
+        assertEquals(-1, restarted.replay(restarted.leftovers().get(0), 10, orders -> { }));
+
+        crashed.close();
+        List<Path> leftovers = restarted.leftovers();
+        assertEquals(1, leftovers.size());
+        List<String> ids = new ArrayList<>();
+        assertEquals(2, restarted.replay(leftovers.get(0), 10, orders -> orders.forEach(o -> ids.add(o.getId()))));
+        assertEquals(List.of("o1", "o2"), ids);
+        assertTrue(restarted.leftovers().isEmpty());
+    }
+
+    @Test
+    void fullyPersistedSegmentsAreDeleted() throws Exception {
+        // Tiny segments so every append rolls to a new file
+        OrderJournal journal = new OrderJournal(dir, 1, objectMapper);
+        long first = journal.append(order("o1"));
+        long second = journal.append(order("o2"));
+        journal.persisted(first, 1);
+        journal.persisted(second, 1);
+        journal.close();
+
+        try (var files = Files.list(dir)) {
+            assertFalse(files.findAny().isPresent());
+        }
+    }
+
+    private static Order order(String id) {
+        return new Order(id, "a@b.c", List.of(new Order.Line("s1", "Ladoo", 2, 10.0)), 20.0, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,105 @@
+package com.shyam.shop.Services;
+
+import com.shyam.shop.Models.Sweet;
+import com.shyam.shop.Repository.SweetRepository;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class PurchaseConcurrencyTest {
+
+    private static final int THREADS = 200;
+    private static final int PURCHASES_PER_THREAD = 25;
+    private static final int INITIAL_STOCK = 2_500;
+
+    private static final MongoServer mongo = new MongoServer(new MemoryBackend());
+
+    @TempDir
+    static Path journalDir;
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        String address = mongo.bindAndGetConnectionString();
+        registry.add("spring.data.mongodb.uri", () -> address + "/purchase-test?serverSelectionTimeoutMS=2000");
+        registry.add("shop.orders.journal-dir", () -> journalDir.toString());
+    }
+
+    @AfterAll
+    static void stopMongo() {
+        mongo.shutdown();
+    }
+
+    @Autowired
+    private SweetService sweetService;
+
+    @Autowired
+    private SweetRepository sweetRepository;
+
+    @Test
+    void hotSweetNeverOversells() throws Exception {
+        Sweet hot = new Sweet();
+        hot.setName("Kaju Katli");
+        hot.setCategory("Barfi");
+        hot.setPrice(40.0);
+        hot.setQuantity(INITIAL_STOCK);
+        String id = sweetService.addSweet(hot).getId();
+        sweetService.getAllSweets();
+
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < PURCHASES_PER_THREAD; i++) {
+                    try {
+                        sweetService.purchaseSweet(id, 1, "buyer@example.com");
+                        sold.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        assertEquals("Insufficient stock", e.getMessage());
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long began = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        double seconds = (System.nanoTime() - began) / 1e9;
+        pool.shutdown();
+
+        int attempts = THREADS * PURCHASES_PER_THREAD;
+        int finalStock = sweetRepository.findById(id).orElseThrow().getQuantity();
+        System.out.printf("purchase storm: %d threads, %d attempts in %.2fs (%.0f ops/s), sold=%d rejected=%d finalStock=%d%n",
+                THREADS, attempts, seconds, attempts / seconds, sold.get(), rejected.get(), finalStock);
+
+        assertEquals(INITIAL_STOCK, sold.get());
+        assertEquals(attempts - INITIAL_STOCK, rejected.get());
+        assertEquals(0, finalStock);
+        assertEquals(0, sweetService.getAllSweets().get(0).getQuantity());
+    }
+}
@@ -0,0 +1,98 @@
+package com.shyam.shop.Services;
+
+import ch.qos.logback.classic.Level;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.shyam.shop.Models.Sweet;
+import com.shyam.shop.Repository.SweetRepository;
+import com.shyam.shop.Repository.SweetRepositoryCustomImpl;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StreamingExportTest {
+
+    // 300k rather than 1M: materialized, these already need several times the 32 MB heap, so the test fails
+    // without streaming either way, and seeding 1M into the embedded Mongo would add minutes to every build
+    private static final int DOCUMENTS = 300_000;
+    private static final String HEAP = "-Xmx32m";
+
+    // The sweets live in an embedded Mongo in this JVM; the export runs in a child JVM whose heap is far
+    // smaller than the materialized list, so it only finishes if exportCatalog streams from the cursor.
+    @Test
+    void exportStreamsFromTheCursorInFixedHeap() throws Exception {
+        MongoServer mongo = new MongoServer(new MemoryBackend());
+        try {
+            InetSocketAddress address = mongo.bind();
+            String uri = "mongodb://" + address.getHostString() + ":" + address.getPort() + "/export-test";
+            seed(uri);
+
+            String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            Process process = new ProcessBuilder(java, HEAP, "-cp", System.getProperty("java.class.path"),
+                    StreamingExportTest.class.getName(), uri, String.valueOf(DOCUMENTS))
+                    .redirectErrorStream(true)
+                    .start();
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            assertEquals(0, process.waitFor(), output);
+        } finally {
+            mongo.shutdownNow();
+        }
+    }
+
+    private static void seed(String uri) {
+        MongoTemplate template = new MongoTemplate(new SimpleMongoClientDatabaseFactory(uri));
+        LocalDateTime now = LocalDateTime.now();
+        List<Sweet> batch = new ArrayList<>(10_000);
+        for (int i = 0; i < DOCUMENTS; i++) {
+            Sweet sweet = new Sweet();
+            sweet.setName("Sweet " + i);
+            sweet.setCategory("Category " + (i % 50));
+            sweet.setPrice(10.0 + i % 500);
+            sweet.setQuantity(i % 1000);
+            sweet.setDescription("Exported sweet number " + i);
+            sweet.setActive(true);
+            sweet.setCreatedAt(now);
+            sweet.setUpdatedAt(now);
+            batch.add(sweet);
+            if (batch.size() == 10_000) {
+                template.insert(batch, Sweet.class);
+                batch.clear();
+            }
+        }
+    }
+
+    // Exits 0 only when the export wrote every document
+    public static void main(String[] args) throws Exception {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+        MongoTemplate template = new MongoTemplate(new SimpleMongoClientDatabaseFactory(args[0]));
+
+        SweetRepositoryCustomImpl custom = new SweetRepositoryCustomImpl();
+        ReflectionTestUtils.setField(custom, "mongoTemplate", template);
+        SweetRepository repository = new MongoRepositoryFactory(template)
+                .getRepository(SweetRepository.class, RepositoryFragments.just(custom));
+
+        SweetService service = new SweetService();
+        ReflectionTestUtils.setField(service, "sweetRepository", repository);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper().registerModule(new JavaTimeModule()));
+
+        long documents = service.exportCatalog(OutputStream.nullOutputStream(), true, false);
+        System.exit(documents == Long.parseLong(args[1]) ? 0 : 1);
+    }
+}
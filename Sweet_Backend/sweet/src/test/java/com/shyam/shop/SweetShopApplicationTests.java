@@ -1,11 +1,25 @@
 package com.shyam.shop;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
 
 @SpringBootTest
 class SweetShopApplicationTests {
 
+	@TempDir
+	static Path journalDir;
+
+	@DynamicPropertySource
+	static void journalProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.data.mongodb.uri", () -> "mongodb://localhost/test?serverSelectionTimeoutMS=2000");
+		registry.add("shop.orders.journal-dir", () -> journalDir.toString());
+	}
+
 	@Test
 	void contextLoads() {
 	}
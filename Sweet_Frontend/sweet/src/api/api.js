@@ -12,4 +12,12 @@ api.interceptors.request.use((req) => {
   return req;
 });
 
+// One page of /sweets/search; pass the previous page's nextCursor to continue, which is null after the last page
+export const searchSweetsPage = async (params, cursor = null) => {
+  const query = new URLSearchParams(params);
+  if (cursor) query.set("cursor", cursor);
+  const res = await api.get(`/sweets/search?${query.toString()}`);
+  return res.data;
+};
+
 export default api;
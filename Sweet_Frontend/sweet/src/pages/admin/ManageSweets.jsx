@@ -1,11 +1,14 @@
 import { useEffect, useState } from "react";
-import api from "../../api/api";
+import api, { searchSweetsPage } from "../../api/api";
 import AdminNavbar from "../../components/Navbar";
 import "./ManageSweets.css";
 
 const ManageSweets = () => {
   const [sweets, setSweets] = useState([]);
   const [filteredSweets, setFilteredSweets] = useState([]);
+  const [searchParams, setSearchParams] = useState(null);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [form, setForm] = useState({
     name: "",
     category: "",
@@ -40,6 +43,7 @@ const ManageSweets = () => {
       const res = await api.get("/sweets");
       setSweets(res.data);
       setFilteredSweets(res.data);
+      setNextCursor(null);
     } catch (error) {
       showMessage("Error loading sweets: " + error.message, "error");
     } finally {
@@ -59,9 +63,11 @@ const ManageSweets = () => {
       if (searchForm.minPrice) params.append("minPrice", searchForm.minPrice);
       if (searchForm.maxPrice) params.append("maxPrice", searchForm.maxPrice);
 
-      const res = await api.get(`/sweets/search?${params.toString()}`);
-      setFilteredSweets(res.data);
-      showMessage(`Found ${res.data.length} result${res.data.length !== 1 ? 's' : ''}`, "success");
+      const page = await searchSweetsPage(params);
+      setFilteredSweets(page.items);
+      setSearchParams(params);
+      setNextCursor(page.nextCursor);
+      showMessage(`Found ${page.items.length}${page.nextCursor ? '+' : ''} result${page.items.length !== 1 || page.nextCursor ? 's' : ''}`, "success");
     } catch (error) {
       showMessage("Error searching sweets: " + error.message, "error");
     } finally {
@@ -78,9 +84,24 @@ const ManageSweets = () => {
       maxPrice: "",
     });
     setFilteredSweets(sweets);
+    setNextCursor(null);
     showMessage("Search filters cleared", "info");
   };
 
+  // Next page of the current search
+  const loadMoreResults = async () => {
+    try {
+      setLoadingMore(true);
+      const page = await searchSweetsPage(searchParams, nextCursor);
+      setFilteredSweets((loaded) => [...loaded, ...page.items]);
+      setNextCursor(page.nextCursor);
+    } catch (error) {
+      showMessage("Error loading more results: " + error.message, "error");
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   // Sort sweets
   const handleSort = (field) => {
     const newOrder = sortBy === field && sortOrder === "asc" ? "desc" : "asc";
@@ -426,7 +447,7 @@ const ManageSweets = () => {
               <h2 className="section-title">
                 <span className="icon">📦</span> All Products
               </h2>
-              <span className="results-count">{filteredSweets.length} items</span>
+              <span className="results-count">{filteredSweets.length}{nextCursor ? '+' : ''} items</span>
             </div>
             <div className="header-right">
               <div className="sort-controls">
@@ -635,6 +656,14 @@ const ManageSweets = () => {
                   </table>
                 </div>
               )}
+
+              {nextCursor && (
+                <div className="load-more-wrapper">
+                  <button className="btn btn-primary" onClick={loadMoreResults} disabled={loadingMore}>
+                    {loadingMore ? "Loading..." : "Load More"}
+                  </button>
+                </div>
+              )}
             </>
           )}
         </div>
@@ -1,11 +1,14 @@
 import { useEffect, useState } from "react";
-import api from "../../api/api";
+import api, { searchSweetsPage } from "../../api/api";
 import SweetCard from "../../components/SweetCard";
 import UserNavbar from "../../components/Navbar";
 import "./UserDashboard.css";
 
 const UserDashboard = () => {
   const [sweets, setSweets] = useState([]);
+  const [searchParams, setSearchParams] = useState(null);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [search, setSearch] = useState("");
   const [category, setCategory] = useState("");
   const [minPrice, setMinPrice] = useState("");
@@ -25,12 +28,17 @@ const UserDashboard = () => {
       if (minPrice) params.append('minPrice', minPrice);
       if (maxPrice) params.append('maxPrice', maxPrice);
       
-      const endpoint = params.toString() 
-        ? `/sweets/search?${params.toString()}`
-        : '/sweets';
-      
-      const res = await api.get(endpoint);
-      setSweets(res.data);
+      if (params.toString()) {
+        const page = await searchSweetsPage(params);
+        setSweets(page.items);
+        setSearchParams(params);
+        setNextCursor(page.nextCursor);
+      } else {
+        const res = await api.get('/sweets');
+        setSweets(res.data);
+        setSearchParams(null);
+        setNextCursor(null);
+      }
     } catch (error) {
       console.error("Error fetching sweets:", error);
       alert("Failed to fetch sweets. Please try again.");
@@ -39,6 +47,20 @@ const UserDashboard = () => {
     }
   };
 
+  const loadMore = async () => {
+    try {
+      setLoadingMore(true);
+      const page = await searchSweetsPage(searchParams, nextCursor);
+      setSweets((loaded) => [...loaded, ...page.items]);
+      setNextCursor(page.nextCursor);
+    } catch (error) {
+      console.error("Error fetching more sweets:", error);
+      alert("Failed to fetch more sweets. Please try again.");
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const purchaseSweet = async (id, quantity = 1) => {
     try {
       await api.post(`/sweets/${id}/purchase?quantity=${quantity}`);
@@ -269,7 +291,7 @@ const UserDashboard = () => {
             <div className="results-header">
               <div className="results-info">
                 <h2 className="results-count">
-                  {sweets.length} {sweets.length === 1 ? 'Sweet' : 'Sweets'} Available
+                  {sweets.length}{nextCursor ? '+' : ''} {sweets.length === 1 && !nextCursor ? 'Sweet' : 'Sweets'} Available
                 </h2>
                 <p className="results-subtext">
                   Discover our handcrafted collection
@@ -310,6 +332,14 @@ const UserDashboard = () => {
                 />
               ))}
             </div>
+
+            {nextCursor && (
+              <div className="load-more-wrapper">
+                <button className="load-more-btn" onClick={loadMore} disabled={loadingMore}>
+                  {loadingMore ? 'Loading...' : 'Load More'}
+                </button>
+              </div>
+            )}
           </>
         )}
       </div>